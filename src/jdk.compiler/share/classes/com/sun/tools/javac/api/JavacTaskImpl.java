@@ -256,6 +256,43 @@ public class JavacTaskImpl extends BasicJavacTask {
 
     private boolean parsed = false;
 
+    /**
+     * Parse a compilation unit again after an edit of its source text.
+     * The characters between {@code start} and {@code oldEnd} of the
+     * previous content have been replaced by those between {@code start}
+     * and {@code newEnd} of the new content. If the edit lies within a
+     * single method, initializer or member class, only that member is
+     * parsed again, and the compilation unit is updated in place;
+     * otherwise the whole content is parsed again.
+     *
+     * @param tree a compilation unit returned by {@link #parse}, which
+     * must not have been entered
+     * @param content the new content of the source file
+     * @param start the start of the edited text
+     * @param oldEnd the end of the edited text in the previous content
+     * @param newEnd the end of the edited text in the new content
+     * @return the compilation unit for the new content
+     */
+    public CompilationUnitTree reparse(CompilationUnitTree tree, CharSequence content,
+                                       int start, int oldEnd, int newEnd) {
+        if (!(tree instanceof JCCompilationUnit))
+            throw new IllegalArgumentException(String.valueOf(tree));
+        return handleExceptions(() -> {
+            try {
+                prepareCompiler(true);
+                JCCompilationUnit unit =
+                        compiler.reparse((JCCompilationUnit) tree, content, start, oldEnd, newEnd);
+                JavaFileObject file = unit.getSourceFile();
+                if (notYetEntered.containsKey(file))
+                    notYetEntered.put(file, unit);
+                return unit;
+            } finally {
+                if (compiler != null && compiler.log != null)
+                    compiler.log.flush();
+            }
+        }, null, null);
+    }
+
     /**
      * Translate all the abstract syntax trees to elements.
      *
@@ -283,6 +283,14 @@ public abstract class Scope {
          */
         Entry[] table;
 
+        /** The names of the entries in the hash table, slot by slot. All the
+         *  entries reachable from a slot through their shadowed links have
+         *  the same name, so probing for a name only needs to compare keys,
+         *  rather than loading each entry and its symbol. The keys of empty
+         *  and deleted slots are meaningless. Shared along with the table.
+         */
+        Name[] keys;
+
         /** Mask for hash codes, always equal to (table.length - 1).
          */
         int hashMask;
@@ -311,17 +319,19 @@ public abstract class Scope {
         /** Construct a new scope, within scope next, with given owner, using
          *  given table. The table's length must be an exponent of 2.
          */
-        private ScopeImpl(ScopeImpl next, Symbol owner, Entry[] table) {
+        private ScopeImpl(ScopeImpl next, Symbol owner, Entry[] table, Name[] keys) {
             super(owner);
             this.next = next;
             Assert.check(owner != null);
+            Assert.check(table.length == keys.length);
             this.table = table;
+            this.keys = keys;
             this.hashMask = table.length - 1;
         }
 
         /** Convenience constructor used for dup and dupUnshared. */
-        private ScopeImpl(ScopeImpl next, Symbol owner, Entry[] table, int nelems) {
-            this(next, owner, table);
+        private ScopeImpl(ScopeImpl next, Symbol owner, Entry[] table, Name[] keys, int nelems) {
+            this(next, owner, table, keys);
             this.nelems = nelems;
         }
 
@@ -329,7 +339,7 @@ public abstract class Scope {
          *  using a fresh table of length INITIAL_SIZE.
          */
         public ScopeImpl(Symbol owner) {
-            this(null, owner, new Entry[INITIAL_SIZE]);
+            this(null, owner, new Entry[INITIAL_SIZE], new Name[INITIAL_SIZE]);
         }
 
         /** Construct a fresh scope within this scope, with new owner,
@@ -338,7 +348,7 @@ public abstract class Scope {
          *  of fresh tables.
          */
         public WriteableScope dup(Symbol newOwner) {
-            ScopeImpl result = new ScopeImpl(this, newOwner, this.table, this.nelems);
+            ScopeImpl result = new ScopeImpl(this, newOwner, this.table, this.keys, this.nelems);
             shared++;
             // System.out.println("====> duping scope " + this.hashCode() + " owned by " + newOwner + " to " + result.hashCode());
             // new Error().printStackTrace(System.out);
@@ -362,6 +372,7 @@ public abstract class Scope {
                 int n = 0;
                 Entry[] oldTable = this.table;
                 Entry[] newTable = new Entry[this.table.length];
+                Name[] newKeys = new Name[this.table.length];
                 for (int i = 0; i < oldTable.length; i++) {
                     Entry e = oldTable[i];
                     while (e != null && e != sentinel && !acceptScopes.contains(e.scope)) {
@@ -370,11 +381,12 @@ public abstract class Scope {
                     if (e != null) {
                         n++;
                         newTable[i] = e;
+                        newKeys[i] = keys[i];
                     }
                 }
-                return new ScopeImpl(this, newOwner, newTable, n);
+                return new ScopeImpl(this, newOwner, newTable, newKeys, n);
             } else {
-                return new ScopeImpl(this, newOwner, this.table.clone(), this.nelems);
+                return new ScopeImpl(this, newOwner, this.table.clone(), this.keys.clone(), this.nelems);
             }
         }
 
@@ -404,11 +416,14 @@ public abstract class Scope {
         private void dble() {
             Assert.check(shared == 0);
             Entry[] oldtable = table;
+            Name[] oldkeys = keys;
             Entry[] newtable = new Entry[oldtable.length * 2];
+            Name[] newkeys = new Name[oldtable.length * 2];
             for (ScopeImpl s = this; s != null; s = s.next) {
                 if (s.table == oldtable) {
                     Assert.check(s == this || s.shared != 0);
                     s.table = newtable;
+                    s.keys = newkeys;
                     s.hashMask = newtable.length - 1;
                 }
             }
@@ -416,7 +431,9 @@ public abstract class Scope {
             for (int i = oldtable.length; --i >= 0; ) {
                 Entry e = oldtable[i];
                 if (e != null && e != sentinel) {
-                    table[getIndex(e.sym.name)] = e;
+                    int j = getIndex(oldkeys[i]);
+                    table[j] = e;
+                    keys[j] = oldkeys[i];
                     n++;
                 }
             }
@@ -439,6 +456,7 @@ public abstract class Scope {
             }
             Entry e = new Entry(sym, old, elems, this);
             table[hash] = e;
+            keys[hash] = sym.name;
             elems = e;
 
             //notify listeners
@@ -557,7 +575,7 @@ public abstract class Scope {
                     // However, remember the index in case we fail to find the name.
                     if (d < 0)
                         d = i;
-                } else if (e.sym.name == name)
+                } else if (keys[i] == name)
                     return i;
                 i = (i + x) & hashMask;
             }
@@ -1065,17 +1083,17 @@ public abstract class Scope {
 
     /** An error scope, for which the owner should be an error symbol. */
     public static class ErrorScope extends ScopeImpl {
-        ErrorScope(ScopeImpl next, Symbol errSymbol, Entry[] table) {
-            super(next, /*owner=*/errSymbol, table);
+        ErrorScope(ScopeImpl next, Symbol errSymbol, Entry[] table, Name[] keys) {
+            super(next, /*owner=*/errSymbol, table, keys);
         }
         public ErrorScope(Symbol errSymbol) {
             super(errSymbol);
         }
         public WriteableScope dup(Symbol newOwner) {
-            return new ErrorScope(this, newOwner, table);
+            return new ErrorScope(this, newOwner, table, keys);
         }
         public WriteableScope dupUnshared(Symbol newOwner) {
-            return new ErrorScope(this, newOwner, table.clone());
+            return new ErrorScope(this, newOwner, table.clone(), keys.clone());
         }
         public Entry lookup(Name name) {
             Entry e = super.lookup(name);
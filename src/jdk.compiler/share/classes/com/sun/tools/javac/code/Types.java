@@ -28,12 +28,14 @@ package com.sun.tools.javac.code;
 import java.lang.ref.SoftReference;
 import java.util.HashSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.stream.Collector;
 
@@ -122,6 +124,165 @@ public class Types {
         diags = JCDiagnostic.Factory.instance(context);
         functionDescriptorLookupError = new FunctionDescriptorLookupError();
         noWarnings = new Warner(null);
+        String cacheSize = Options.instance(context).get("typeRelationCache");
+        relationCache = (cacheSize == null) ? null : new RelationCache(cacheSize);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="relation cache">
+    /**
+     * Memo for the answers of isSubtype and isSameType, enabled with
+     * -XDtypeRelationCache[=max entries]; null when disabled.
+     */
+    private final RelationCache relationCache;
+
+    /**
+     * The number of recursion guards (see containsTypeRecursive and checkSameBounds)
+     * currently active. Answers computed while a guard is active may be provisional,
+     * so they are neither looked up in, nor added to, the relation cache.
+     */
+    private int activeRecursionGuards = 0;
+
+    enum RelationKind {
+        SUBTYPE,
+        SUBTYPE_NO_CAPTURE,
+        SAME_TYPE,
+        SAME_TYPE_STRICT
+    }
+
+    /**
+     * Returns a summary of the relation cache usage, or null if the cache is disabled.
+     */
+    public String relationCacheStatistics() {
+        return relationCache == null ? null : relationCache.toString();
+    }
+
+    /**
+     * A bounded, least-recently-used cache of type relation answers. Types are
+     * compared by identity; only types whose answers cannot change later on
+     * (see isSettled) are cached.
+     */
+    class RelationCache {
+        static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+
+        final int maxEntries;
+        final Map<RelationKey, Boolean> entries;
+        int hits, misses, evictions;
+
+        RelationCache(String option) {
+            int n;
+            try {
+                n = Integer.parseInt(option);
+            } catch (NumberFormatException e) {
+                n = DEFAULT_MAX_ENTRIES;
+            }
+            maxEntries = Math.max(n, 1);
+            entries = new LinkedHashMap<RelationKey, Boolean>(16, 0.75f, true) {
+                private static final long serialVersionUID = 0;
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<RelationKey, Boolean> eldest) {
+                    if (size() > maxEntries) {
+                        evictions++;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        boolean accepts(Type t, Type s) {
+            return activeRecursionGuards == 0 && isSettled(t) && isSettled(s);
+        }
+
+        boolean test(RelationKind kind, Type t, Type s, BooleanSupplier relation) {
+            RelationKey key = new RelationKey(kind, t, s);
+            Boolean result = entries.get(key);
+            if (result != null) {
+                hits++;
+                return result;
+            }
+            misses++;
+            boolean b = relation.getAsBoolean();
+            entries.put(key, b);
+            return b;
+        }
+
+        void clear() {
+            entries.clear();
+        }
+
+        /**
+         * Is the type built only from primitive types and classes whose
+         * supertypes are known, and known not to be cyclic?
+         */
+        private boolean isSettled(Type t) {
+            switch (t.getTag()) {
+                case BYTE: case CHAR: case SHORT: case INT: case LONG:
+                case FLOAT: case DOUBLE: case BOOLEAN: case VOID: case BOT:
+                    return true;
+                case ARRAY:
+                    return isSettled(((ArrayType)t).elemtype);
+                case CLASS: {
+                    if (t.isCompound() || !isSettled((ClassSymbol)t.tsym))
+                        return false;
+                    ClassType ct = (ClassType)t;
+                    if (ct.typarams_field == null)
+                        return false;
+                    for (Type a : ct.typarams_field) {
+                        if (a.hasTag(WILDCARD)) {
+                            WildcardType w = (WildcardType)a;
+                            if (w.type != null && !isSettled(w.type))
+                                return false;
+                        } else if (!isSettled(a)) {
+                            return false;
+                        }
+                    }
+                    Type outer = ct.getEnclosingType();
+                    return !outer.hasTag(CLASS) || isSettled(outer);
+                }
+                default:
+                    return false;
+            }
+        }
+
+        private boolean isSettled(ClassSymbol c) {
+            if ((c.flags_field & ACYCLIC) != 0)
+                return true;
+            return c.isCompleted()
+                    && c.classfile != null
+                    && c.classfile.getKind() == JavaFileObject.Kind.CLASS;
+        }
+
+        @Override
+        public String toString() {
+            return "type relation cache: " + hits + " hits, " + misses + " misses, "
+                    + evictions + " evictions, " + entries.size() + " entries";
+        }
+    }
+
+    static class RelationKey {
+        final RelationKind kind;
+        final Type t;
+        final Type s;
+
+        RelationKey(RelationKind kind, Type t, Type s) {
+            this.kind = kind;
+            this.t = t;
+            this.s = s;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * System.identityHashCode(t) + System.identityHashCode(s)) * 31 + kind.ordinal();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RelationKey))
+                return false;
+            RelationKey that = (RelationKey)obj;
+            return kind == that.kind && t == that.t && s == that.s;
+        }
     }
     // </editor-fold>
 
@@ -750,6 +911,14 @@ public class Types {
         return isSubtype(t, s, false);
     }
     public boolean isSubtype(Type t, Type s, boolean capture) {
+        if (relationCache != null && relationCache.accepts(t, s)) {
+            return relationCache.test(capture ? RelationKind.SUBTYPE : RelationKind.SUBTYPE_NO_CAPTURE,
+                                      t, s, () -> isSubtypeUncached(t, s, capture));
+        }
+        return isSubtypeUncached(t, s, capture);
+    }
+
+    private boolean isSubtypeUncached(Type t, Type s, boolean capture) {
         if (t.equalsIgnoreMetadata(s))
             return true;
         if (s.isPartial())
@@ -809,10 +978,12 @@ public class Types {
             private boolean containsTypeRecursive(Type t, Type s) {
                 TypePair pair = new TypePair(t, s);
                 if (cache.add(pair)) {
+                    activeRecursionGuards++;
                     try {
                         return containsType(t.getTypeArguments(),
                                             s.getTypeArguments());
                     } finally {
+                        activeRecursionGuards--;
                         cache.remove(pair);
                     }
                 } else {
@@ -1019,6 +1190,14 @@ public class Types {
         return isSameType(t, s, false);
     }
     public boolean isSameType(Type t, Type s, boolean strict) {
+        if (relationCache != null && relationCache.accepts(t, s)) {
+            return relationCache.test(strict ? RelationKind.SAME_TYPE_STRICT : RelationKind.SAME_TYPE,
+                                      t, s, () -> isSameTypeUncached(t, s, strict));
+        }
+        return isSameTypeUncached(t, s, strict);
+    }
+
+    private boolean isSameTypeUncached(Type t, Type s, boolean strict) {
         return strict ?
                 isSameTypeStrict.visit(t, s) :
                 isSameTypeLoose.visit(t, s);
@@ -1191,9 +1370,11 @@ public class Types {
             private boolean checkSameBounds(TypeVar tv1, TypeVar tv2) {
                 TypePair p = new TypePair(tv1, tv2, true);
                 if (cache.add(p)) {
+                    activeRecursionGuards++;
                     try {
                         return visit(tv1.getUpperBound(), tv2.getUpperBound());
                     } finally {
+                        activeRecursionGuards--;
                         cache.remove(p);
                     }
                 } else {
@@ -4920,6 +5101,8 @@ public class Types {
     // </editor-fold>
 
     public void newRound() {
+        if (relationCache != null)
+            relationCache.clear();
         descCache._map.clear();
         isDerivedRawCache.clear();
         implCache._map.clear();
@@ -51,7 +51,6 @@ import com.sun.tools.javac.tree.JCTree.JCMethodInvocation;
 import com.sun.tools.javac.tree.JCTree.JCNewClass;
 import com.sun.tools.javac.tree.JCTree.JCParens;
 import com.sun.tools.javac.tree.JCTree.JCReturn;
-import com.sun.tools.javac.tree.TreeCopier;
 import com.sun.tools.javac.tree.TreeInfo;
 import com.sun.tools.javac.util.Assert;
 import com.sun.tools.javac.util.Context;
@@ -60,6 +59,8 @@ import com.sun.tools.javac.util.JCDiagnostic.DiagnosticPosition;
 import com.sun.tools.javac.util.List;
 import com.sun.tools.javac.util.ListBuffer;
 import com.sun.tools.javac.util.Log;
+import com.sun.tools.javac.util.Options;
+import com.sun.tools.javac.util.Pair;
 
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -68,6 +69,8 @@ import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import javax.tools.JavaFileObject;
+
 import static com.sun.tools.javac.code.TypeTag.ARRAY;
 import static com.sun.tools.javac.code.TypeTag.DEFERRED;
 import static com.sun.tools.javac.code.TypeTag.FORALL;
@@ -110,6 +113,9 @@ public class ArgumentAttr extends JCTree.Visitor {
     /** Cache for argument types; behavior is influences by the currrently selected cache policy. */
     Map<UniquePos, ArgumentType<?>> argumentTypeCache = new LinkedHashMap<>();
 
+    /** Argument cache statistics for each compilation unit (only with -XDargumentCacheStats). */
+    private final Map<JavaFileObject, CacheStats> cacheStats;
+
     public static ArgumentAttr instance(Context context) {
         ArgumentAttr instance = context.get(methodAttrKey);
         if (instance == null)
@@ -123,6 +129,44 @@ public class ArgumentAttr extends JCTree.Visitor {
         attr = Attr.instance(context);
         syms = Symtab.instance(context);
         log = Log.instance(context);
+        cacheStats = Options.instance(context).isSet("argumentCacheStats") ?
+                new LinkedHashMap<>() : null;
+    }
+
+    /**
+     * Returns a summary of the argument cache usage for each compilation unit,
+     * or an empty list if statistics are not being collected.
+     */
+    public List<String> cacheStatistics() {
+        ListBuffer<String> buf = new ListBuffer<>();
+        if (cacheStats != null) {
+            cacheStats.forEach((file, stats) -> buf.append("argument cache " + file.getName() + ": " + stats));
+        }
+        return buf.toList();
+    }
+
+    /**
+     * Returns the statistics of the compilation unit of the given environment, or null
+     * if statistics are not being collected.
+     */
+    CacheStats cacheStats(Env<AttrContext> env) {
+        return cacheStats == null ?
+                null :
+                cacheStats.computeIfAbsent(env.toplevel.sourcefile, f -> new CacheStats());
+    }
+
+    static class CacheStats {
+        /** number of arguments whose speculative type was found in the cache */
+        int hits;
+        /** number of arguments that had to be attributed speculatively */
+        int misses;
+        /** number of overload checks performed against speculative types */
+        int overloadChecks;
+
+        @Override
+        public String toString() {
+            return hits + " hits, " + misses + " misses, " + overloadChecks + " overload checks";
+        }
     }
 
     /**
@@ -231,10 +275,17 @@ public class ArgumentAttr extends JCTree.Visitor {
     <T extends JCExpression, Z extends ArgumentType<T>> void processArg(T that, Supplier<Z> argumentTypeFactory) {
         UniquePos pos = new UniquePos(that);
         Z cached = (Z)argumentTypeCache.get(pos);
+        CacheStats stats = cacheStats(env);
         if (cached != null) {
             //dup existing speculative type
+            if (stats != null) {
+                stats.hits++;
+            }
             setResult(that, cached.dup(that, env));
         } else {
+            if (stats != null) {
+                stats.misses++;
+            }
             Z res = argumentTypeFactory.get();
             argumentTypeCache.put(pos, res);
             setResult(that, res);
@@ -259,8 +310,7 @@ public class ArgumentAttr extends JCTree.Visitor {
         exprTree = (JCExpression)deferredAttr.attribSpeculative(tree.getQualifierExpression(), localEnv,
                 attr.memberReferenceQualifierResult(tree),
                 withLocalCacheContext());
-        JCMemberReference mref2 = new TreeCopier<Void>(attr.make).copy(tree);
-        mref2.expr = exprTree;
+        JCMemberReference mref2 = deferredAttr.copyReference(tree, exprTree);
         Symbol lhsSym = TreeInfo.symbol(exprTree);
         localEnv.info.selectSuper = lhsSym != null && lhsSym.name == lhsSym.name.table.names._super;
         Symbol res =
@@ -329,10 +379,10 @@ public class ArgumentAttr extends JCTree.Visitor {
         /** The speculative tree carrying type information. */
         T speculativeTree;
 
-        /** Types associated with this argument (one type per possible target result). */
-        Map<ResultInfo, Type> speculativeTypes;
+        /** Types associated with this argument (one type per candidate method and resolution phase). */
+        Map<Pair<Symbol, MethodResolutionPhase>, Type> speculativeTypes;
 
-        public ArgumentType(JCExpression tree, Env<AttrContext> env, T speculativeTree, Map<ResultInfo, Type> speculativeTypes) {
+        public ArgumentType(JCExpression tree, Env<AttrContext> env, T speculativeTree, Map<Pair<Symbol, MethodResolutionPhase>, Type> speculativeTypes) {
             deferredAttr.super(tree, env);
             this.speculativeTree = speculativeTree;
             this.speculativeTypes = speculativeTypes;
@@ -347,10 +397,14 @@ public class ArgumentAttr extends JCTree.Visitor {
         final public Type complete(DeferredType dt, ResultInfo resultInfo, DeferredAttrContext deferredAttrContext) {
             Assert.check(dt == this);
             if (deferredAttrContext.mode == AttrMode.SPECULATIVE) {
+                CacheStats stats = cacheStats(env);
+                if (stats != null) {
+                    stats.overloadChecks++;
+                }
                 Type t = (resultInfo.pt == Type.recoveryType) ?
                         deferredAttr.basicCompleter.complete(dt, resultInfo, deferredAttrContext) :
                         overloadCheck(resultInfo, deferredAttrContext);
-                speculativeTypes.put(resultInfo, t);
+                putSpeculativeType(resultInfo, t);
                 return t;
             } else {
                 if (!env.info.isSpeculative) {
@@ -363,18 +417,22 @@ public class ArgumentAttr extends JCTree.Visitor {
         @Override
         Type speculativeType(Symbol msym, MethodResolutionPhase phase) {
             if (pertinentToApplicability) {
-                for (Map.Entry<ResultInfo, Type> _entry : speculativeTypes.entrySet()) {
-                    DeferredAttrContext deferredAttrContext = _entry.getKey().checkContext.deferredAttrContext();
-                    if (deferredAttrContext.phase == phase && deferredAttrContext.msym == msym) {
-                        return _entry.getValue();
-                    }
-                }
-                return Type.noType;
+                Type t = speculativeTypes.get(new Pair<>(msym, phase));
+                return t != null ? t : Type.noType;
             } else {
                 return super.speculativeType(msym, phase);
             }
         }
 
+        /**
+         * Records the type of this argument for the candidate method and resolution
+         * phase of the given target result.
+         */
+        void putSpeculativeType(ResultInfo resultInfo, Type t) {
+            DeferredAttrContext deferredAttrContext = resultInfo.checkContext.deferredAttrContext();
+            speculativeTypes.put(new Pair<>(deferredAttrContext.msym, deferredAttrContext.phase), t);
+        }
+
         @Override
         JCTree speculativeTree(DeferredAttrContext deferredAttrContext) {
             return pertinentToApplicability ? speculativeTree : super.speculativeTree(deferredAttrContext);
@@ -399,7 +457,7 @@ public class ArgumentAttr extends JCTree.Visitor {
             this(tree, env, speculativeParens, new HashMap<>());
         }
 
-        ParensType(JCExpression tree, Env<AttrContext> env, JCParens speculativeParens, Map<ResultInfo, Type> speculativeTypes) {
+        ParensType(JCExpression tree, Env<AttrContext> env, JCParens speculativeParens, Map<Pair<Symbol, MethodResolutionPhase>, Type> speculativeTypes) {
            super(tree, env, speculativeParens, speculativeTypes);
         }
 
@@ -422,7 +480,7 @@ public class ArgumentAttr extends JCTree.Visitor {
             this(tree, env, speculativeCond, new HashMap<>());
         }
 
-        ConditionalType(JCExpression tree, Env<AttrContext> env, JCConditional speculativeCond, Map<ResultInfo, Type> speculativeTypes) {
+        ConditionalType(JCExpression tree, Env<AttrContext> env, JCConditional speculativeCond, Map<Pair<Symbol, MethodResolutionPhase>, Type> speculativeTypes) {
            super(tree, env, speculativeCond, speculativeTypes);
         }
 
@@ -464,7 +522,7 @@ public class ArgumentAttr extends JCTree.Visitor {
             this(originalLambda, env, speculativeLambda, new HashMap<>());
         }
 
-        ExplicitLambdaType(JCLambda originalLambda, Env<AttrContext> env, JCLambda speculativeLambda, Map<ResultInfo, Type> speculativeTypes) {
+        ExplicitLambdaType(JCLambda originalLambda, Env<AttrContext> env, JCLambda speculativeLambda, Map<Pair<Symbol, MethodResolutionPhase>, Type> speculativeTypes) {
             super(originalLambda, env, speculativeLambda, speculativeTypes);
         }
 
@@ -548,7 +606,7 @@ public class ArgumentAttr extends JCTree.Visitor {
      */
     abstract class ResolvedMemberType<E extends JCExpression> extends ArgumentType<E> {
 
-        public ResolvedMemberType(JCExpression tree, Env<AttrContext> env, E speculativeMethod, Map<ResultInfo, Type> speculativeTypes) {
+        public ResolvedMemberType(JCExpression tree, Env<AttrContext> env, E speculativeMethod, Map<Pair<Symbol, MethodResolutionPhase>, Type> speculativeTypes) {
             super(tree, env, speculativeMethod, speculativeTypes);
         }
 
@@ -559,14 +617,14 @@ public class ArgumentAttr extends JCTree.Visitor {
             if (mtype != null && mtype.hasTag(METHOD) && mtype.isPartial()) {
                 Type t = ((PartiallyInferredMethodType)mtype).check(localInfo);
                 if (!deferredAttrContext.inferenceContext.free(localInfo.pt)) {
-                    speculativeTypes.put(localInfo, t);
+                    putSpeculativeType(localInfo, t);
                     return localInfo.check(tree.pos(), t);
                 } else {
                     return t;
                 }
             } else {
                 Type t = localInfo.check(tree.pos(), speculativeTree.type);
-                speculativeTypes.put(localInfo, t);
+                putSpeculativeType(localInfo, t);
                 return t;
             }
         }
@@ -591,7 +649,7 @@ public class ArgumentAttr extends JCTree.Visitor {
             this(tree, env, speculativeTree, new HashMap<>());
         }
 
-        public ResolvedMethodType(JCExpression tree, Env<AttrContext> env, JCMethodInvocation speculativeTree, Map<ResultInfo, Type> speculativeTypes) {
+        public ResolvedMethodType(JCExpression tree, Env<AttrContext> env, JCMethodInvocation speculativeTree, Map<Pair<Symbol, MethodResolutionPhase>, Type> speculativeTypes) {
             super(tree, env, speculativeTree, speculativeTypes);
         }
 
@@ -620,7 +678,7 @@ public class ArgumentAttr extends JCTree.Visitor {
             this(tree, env, speculativeTree, new HashMap<>());
         }
 
-        public ResolvedConstructorType(JCExpression tree, Env<AttrContext> env, JCNewClass speculativeTree, Map<ResultInfo, Type> speculativeTypes) {
+        public ResolvedConstructorType(JCExpression tree, Env<AttrContext> env, JCNewClass speculativeTree, Map<Pair<Symbol, MethodResolutionPhase>, Type> speculativeTypes) {
             super(tree, env, speculativeTree, speculativeTypes);
         }
 
@@ -1814,6 +1814,8 @@ public class Attr extends JCTree.Visitor {
         boolean isConstructorCall =
             methName == names._this || methName == names._super;
 
+        int prevCopiedTreeNodes = deferredAttr.copiedTreeNodes;
+
         ListBuffer<Type> argtypesBuf = new ListBuffer<>();
         if (isConstructorCall) {
             // We are seeing a ...this(...) or ...super(...) call.
@@ -1929,6 +1931,7 @@ public class Attr extends JCTree.Visitor {
             result = check(tree, capturedRes, KindSelector.VAL, resultInfo);
         }
         chk.validate(tree.typeargs, localEnv);
+        rs.reportSpeculativeCopies(tree.pos(), methName, prevCopiedTreeNodes);
     }
     //where
         Type adjustMethodReturnType(Symbol msym, Type qualifierType, Name methodName, List<Type> argtypes, Type restype) {
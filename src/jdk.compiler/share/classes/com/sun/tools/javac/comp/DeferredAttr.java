@@ -93,6 +93,9 @@ public class DeferredAttr extends JCTree.Visitor {
     final Names names;
     final TypeEnvs typeEnvs;
 
+    /** number of tree nodes copied so far for speculative attribution */
+    int copiedTreeNodes = 0;
+
     public static DeferredAttr instance(Context context) {
         DeferredAttr instance = context.get(deferredAttrKey);
         if (instance == null)
@@ -137,6 +140,13 @@ public class DeferredAttr extends JCTree.Visitor {
         // For speculative attribution, skip the class definition in <>.
         treeCopier =
             new TreeCopier<Void>(make) {
+                @Override
+                public <T extends JCTree> T copy(T tree, Void p) {
+                    if (tree != null)
+                        copiedTreeNodes++;
+                    return super.copy(tree, p);
+                }
+
                 @Override @DefinedBy(Api.COMPILER_TREE)
                 public JCTree visitNewClass(NewClassTree node, Void p) {
                     JCNewClass t = (JCNewClass) node;
@@ -496,6 +506,17 @@ public class DeferredAttr extends JCTree.Visitor {
             }
         }
     }
+
+    /**
+     * Returns a copy of a member reference whose qualifier is replaced by the given,
+     * speculatively attributed, expression. The original qualifier is not copied,
+     * as its copy would be discarded straight away.
+     */
+    JCMemberReference copyReference(JCMemberReference tree, JCExpression expr) {
+        List<JCExpression> typeargs = new TreeCopier<Void>(make).copy(tree.typeargs);
+        return make.at(tree.pos).Reference(tree.mode, tree.name, expr, typeargs);
+    }
+
     //where
 
         class UnenterScanner extends TreeScanner {
@@ -897,8 +918,7 @@ public class DeferredAttr extends JCTree.Visitor {
                     for (Type t : types.findDescriptorType(pt).getParameterTypes()) {
                         argtypes.append(Type.noType);
                     }
-                    JCMemberReference mref2 = new TreeCopier<Void>(make).copy(tree);
-                    mref2.expr = exprTree;
+                    JCMemberReference mref2 = copyReference(tree, exprTree);
                     Symbol lookupSym =
                             rs.resolveMemberReference(localEnv, mref2, exprTree.type,
                                     tree.name, argtypes.toList(), List.nil(), rs.arityMethodCheck,
@@ -52,11 +52,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
@@ -86,6 +88,9 @@ public class Infer {
     /** should the graph solver be used? */
     boolean allowGraphInference;
 
+    /** should incorporation only visit inference variables with pending actions? */
+    final boolean worklistIncorporation;
+
     /**
      * folder in which the inference dependency graphs should be written.
      */
@@ -116,6 +121,7 @@ public class Infer {
         Options options = Options.instance(context);
         allowGraphInference = Source.instance(context).allowGraphInference()
                 && options.isUnset("useLegacyInference");
+        worklistIncorporation = options.isSet("worklistIncorporation");
         dependenciesFolder = options.get("debug.dumpInferenceGraphsTo");
         pendingGraphs = List.nil();
 
@@ -1041,12 +1047,18 @@ public class Infer {
         @Override
         public void varInstantiated(UndetVar uv) {
             uv.incorporationActions.addFirst(new SubstBounds(uv));
+            if (incorporationWorklist != null) {
+                incorporationWorklist.add(uv);
+            }
         }
 
         @Override
         public void varBoundChanged(UndetVar uv, InferenceBound ib, Type bound, boolean update) {
             if (uv.isCaptured()) return;
             uv.incorporationActions.addAll(getIncorporationActions(uv, ib, bound, update));
+            if (incorporationWorklist != null) {
+                incorporationWorklist.add(uv);
+            }
         }
 
         abstract List<IncorporationAction> getIncorporationActions(UndetVar uv, InferenceBound ib, Type t, boolean update);
@@ -1111,6 +1123,10 @@ public class Infer {
      */
     void doIncorporation(InferenceContext inferenceContext, Warner warn) throws InferenceException {
         try {
+            if (worklistIncorporation) {
+                doWorklistIncorporation(inferenceContext, warn);
+                return;
+            }
             boolean progress = true;
             int round = 0;
             while (progress && round < MAX_INCORPORATION_STEPS) {
@@ -1129,6 +1145,100 @@ public class Infer {
         }
     }
 
+    /**
+     * Same as the loop in doIncorporation, but each round only visits the inference
+     * variables with pending incorporation actions, rather than all the inference
+     * variables in the context. Variables are visited in the same order, so that
+     * actions are applied exactly in the same sequence.
+     */
+    private void doWorklistIncorporation(InferenceContext inferenceContext, Warner warn) {
+        IncorporationWorklist prevWorklist = incorporationWorklist;
+        IncorporationWorklist worklist = worklistFor(inferenceContext);
+        incorporationWorklist = worklist;
+        try {
+            int round = 0;
+            while (!worklist.pending.isEmpty() && round < MAX_INCORPORATION_STEPS) {
+                for (int i = worklist.pending.nextSetBit(0); i >= 0; i = worklist.pending.nextSetBit(i + 1)) {
+                    UndetVar uv = worklist.vars[i];
+                    if (!uv.incorporationActions.isEmpty()) {
+                        uv.incorporationActions.removeFirst().apply(inferenceContext, warn);
+                    }
+                    if (uv.incorporationActions.isEmpty()) {
+                        worklist.pending.clear(i);
+                    }
+                }
+                round++;
+                if (inferenceContext.undetvars != worklist.undetvars) {
+                    //inference variables have been added to the context
+                    worklist = worklistFor(inferenceContext);
+                    incorporationWorklist = worklist;
+                }
+            }
+        } finally {
+            incorporationWorklist = prevWorklist;
+        }
+    }
+
+    /** the worklist of the ongoing worklist-based incorporation, if any */
+    private IncorporationWorklist incorporationWorklist;
+
+    /**
+     * Returns the worklist of an inference context, marking the inference variables
+     * that have pending incorporation actions. The worklist is kept in the context,
+     * and only rebuilt when the inference variables of the context have changed.
+     */
+    private IncorporationWorklist worklistFor(InferenceContext inferenceContext) {
+        IncorporationWorklist worklist = inferenceContext.incorporationWorklist;
+        if (worklist == null || worklist.undetvars != inferenceContext.undetvars) {
+            worklist = new IncorporationWorklist(inferenceContext.undetvars);
+            inferenceContext.incorporationWorklist = worklist;
+        } else {
+            worklist.reset();
+        }
+        return worklist;
+    }
+
+    /**
+     * The inference variables of a context that have pending incorporation actions,
+     * indexed by their position in the context.
+     */
+    class IncorporationWorklist {
+        final List<Type> undetvars;
+        final UndetVar[] vars;
+        final Map<UndetVar, Integer> indexes = new IdentityHashMap<>();
+        final BitSet pending = new BitSet();
+
+        IncorporationWorklist(List<Type> undetvars) {
+            this.undetvars = undetvars;
+            vars = new UndetVar[undetvars.length()];
+            int i = 0;
+            for (Type t : undetvars) {
+                UndetVar uv = (UndetVar)t;
+                vars[i] = uv;
+                indexes.put(uv, i);
+                i++;
+            }
+            reset();
+        }
+
+        /** mark the variables that have pending incorporation actions */
+        void reset() {
+            pending.clear();
+            for (int i = 0; i < vars.length; i++) {
+                if (!vars[i].incorporationActions.isEmpty()) {
+                    pending.set(i);
+                }
+            }
+        }
+
+        void add(UndetVar uv) {
+            Integer i = indexes.get(uv);
+            if (i != null) {
+                pending.set(i);
+            }
+        }
+    }
+
     /* If for two types t and s there is a least upper bound that contains
      * parameterized types G1, G2 ... Gn, then there exists supertypes of 't' of the form
      * G1<T1, ..., Tn>, G2<T1, ..., Tn>, ... Gn<T1, ..., Tn> and supertypes of 's' of the form
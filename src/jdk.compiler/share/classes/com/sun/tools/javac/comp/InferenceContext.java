@@ -81,6 +81,9 @@ public class InferenceContext {
 
     Map<FreeTypeListener, List<Type>> freeTypeListeners = new LinkedHashMap<>();
 
+    /** the worklist used by worklist-based incorporation, reused across rounds */
+    Infer.IncorporationWorklist incorporationWorklist;
+
     Types types;
     Infer infer;
 
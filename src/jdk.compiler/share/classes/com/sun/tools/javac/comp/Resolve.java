@@ -174,7 +174,8 @@ public class Resolve {
         DEFERRED_INST("deferred-inference"),
         PREDEF("predef"),
         OBJECT_INIT("object-init"),
-        INTERNAL("internal");
+        INTERNAL("internal"),
+        SPECULATIVE_COPIES("speculative-copies");
 
         final String opt;
 
@@ -250,6 +251,20 @@ public class Resolve {
         log.report(d);
     }
 
+    /**
+     * Report how many tree nodes have been copied for speculative attribution
+     * since the given count was taken, e.g. while attributing a method call.
+     */
+    void reportSpeculativeCopies(DiagnosticPosition dpos, Name name, int prevCopiedTreeNodes) {
+        if (!verboseResolutionMode.contains(VerboseResolutionMode.SPECULATIVE_COPIES)) {
+            return;
+        }
+        int copiedTreeNodes = deferredAttr.copiedTreeNodes - prevCopiedTreeNodes;
+        if (copiedTreeNodes > 0) {
+            log.note(dpos, "speculative.tree.copies", name, copiedTreeNodes);
+        }
+    }
+
     JCDiagnostic getVerboseApplicableCandidateDiag(int pos, Symbol sym, Type inst) {
         JCDiagnostic subDiag = null;
         if (sym.type.hasTag(FORALL)) {
@@ -43,11 +43,11 @@ import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException;
 import java.nio.file.Path;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
@@ -456,11 +456,39 @@ public abstract class BaseFileManager implements JavaFileManager {
         contentCache.put(file, new ContentCacheEntry(file, cb));
     }
 
+    /**
+     * Read and decode the content of a source file ahead of a call of
+     * getCharContent, and put it in the content cache. Unlike getCharContent,
+     * this may be called on threads other than the compiler thread: nothing
+     * is reported, and files that cannot be read or decoded without errors
+     * are left for getCharContent to read and report as usual.
+     * @param file the file to be read
+     * @param encodingName the name of the encoding, as given by getEncodingName
+     */
+    public void prefetchContent(JavaFileObject file, String encodingName) {
+        if (!(file instanceof PathFileObject) || getCachedContent(file) != null)
+            return;
+        try (InputStream in = file.openInputStream()) {
+            ByteBuffer bb = ByteBuffer.wrap(in.readAllBytes());
+            CharBuffer cb = getDecoder(encodingName, false).decode(bb);
+            // make sure there is at least one extra character, as in decode
+            if (cb.limit() == cb.capacity()) {
+                cb = CharBuffer.allocate(cb.capacity() + 1).put(cb);
+                cb.flip();
+            }
+            cache(file, cb);
+        } catch (IOException | RuntimeException e) {
+            // ignore, leave the file to getCharContent
+        }
+    }
+
     public void flushCache(JavaFileObject file) {
         contentCache.remove(file);
     }
 
-    protected final Map<JavaFileObject, ContentCacheEntry> contentCache = new HashMap<>();
+    // class files may be written by background threads (see ClassWriter),
+    // which flush the cache entries of the files they overwrite
+    protected final Map<JavaFileObject, ContentCacheEntry> contentCache = new ConcurrentHashMap<>();
 
     protected static class ContentCacheEntry {
         final long timestamp;
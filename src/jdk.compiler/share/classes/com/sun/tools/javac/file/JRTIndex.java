@@ -37,13 +37,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.ProviderNotFoundException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.tools.FileObject;
 
@@ -96,6 +96,8 @@ public class JRTIndex {
 
     /**
      * A lazily evaluated set of entries about the contents of the jrt: file system.
+     * The shared instance is used by all file managers in the VM, so entries
+     * are looked up without locking; an entry is immutable once created.
      */
     private final Map<RelativeDirectory, SoftReference<Entry>> entries;
 
@@ -178,17 +180,19 @@ public class JRTIndex {
      */
     private JRTIndex() throws IOException {
         jrtfs = FileSystems.getFileSystem(URI.create("jrt:/"));
-        entries = new HashMap<>();
+        entries = new ConcurrentHashMap<>();
     }
 
     public CtSym getCtSym(CharSequence packageName) throws IOException {
         return getEntry(RelativeDirectory.forPackage(packageName)).ctSym;
     }
 
-    synchronized Entry getEntry(RelativeDirectory rd) throws IOException {
+    Entry getEntry(RelativeDirectory rd) throws IOException {
         SoftReference<Entry> ref = entries.get(rd);
         Entry e = (ref == null) ? null : ref.get();
         if (e == null) {
+            // Threads racing for the same directory may each build an entry;
+            // they are equivalent, and the last one stored wins.
             Map<String, Path> files = new LinkedHashMap<>();
             Set<RelativeDirectory> subdirs = new LinkedHashSet<>();
             Path dir;
@@ -242,9 +246,10 @@ public class JRTIndex {
             return CtSym.EMPTY;
         // It's a side-effect of the default build rules that ct.properties
         // ends up as a resource bundle.
+        ResourceBundle ctBundle = this.ctBundle;
         if (ctBundle == null) {
             final String bundleName = "com.sun.tools.javac.resources.ct";
-            ctBundle = ResourceBundle.getBundle(bundleName);
+            this.ctBundle = ctBundle = ResourceBundle.getBundle(bundleName);
         }
         try {
             String attrs = ctBundle.getString(dir.path.replace('/', '.') + '*');
@@ -270,5 +275,5 @@ public class JRTIndex {
 
     }
 
-    private ResourceBundle ctBundle;
+    private volatile ResourceBundle ctBundle;
 }
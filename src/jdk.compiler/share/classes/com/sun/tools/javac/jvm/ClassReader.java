@@ -2772,12 +2772,12 @@ public class ClassReader {
     // where
         private static byte[] readInputStream(byte[] buf, InputStream s) throws IOException {
             try {
-                buf = ensureCapacity(buf, s.available());
-                int r = s.read(buf);
                 int bp = 0;
+                buf = ensureCapacity(buf, s.available(), bp);
+                int r = s.read(buf);
                 while (r != -1) {
                     bp += r;
-                    buf = ensureCapacity(buf, bp);
+                    buf = ensureCapacity(buf, bp, bp);
                     r = s.read(buf, bp, buf.length - bp);
                 }
                 return buf;
@@ -2797,12 +2797,15 @@ public class ClassReader {
          * the new buffer will always be greater than the needed and never
          * exactly equal to the needed size or bp. If equal then the read (above)
          * will infinitely loop as buf.length - bp == 0.
+         * Only the first `valid' bytes are copied: the buffer is reused from
+         * one class file to the next, and anything beyond the bytes read so
+         * far is left over from a previous class.
          */
-        private static byte[] ensureCapacity(byte[] buf, int needed) {
+        private static byte[] ensureCapacity(byte[] buf, int needed, int valid) {
             if (buf.length <= needed) {
                 byte[] old = buf;
                 buf = new byte[Integer.highestOneBit(needed) << 1];
-                System.arraycopy(old, 0, buf, 0, old.length);
+                System.arraycopy(old, 0, buf, 0, valid);
             }
             return buf;
         }
@@ -31,6 +31,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 import javax.tools.JavaFileManager;
 import javax.tools.FileObject;
@@ -49,7 +53,9 @@ import com.sun.tools.javac.jvm.Pool.Method;
 import com.sun.tools.javac.jvm.Pool.MethodHandle;
 import com.sun.tools.javac.jvm.Pool.Variable;
 import com.sun.tools.javac.main.Option;
+import com.sun.tools.javac.main.ParallelCompile;
 import com.sun.tools.javac.util.*;
+import com.sun.tools.javac.util.JCDiagnostic.DiagnosticPosition;
 
 import static com.sun.tools.javac.code.Flags.*;
 import static com.sun.tools.javac.code.Kinds.Kind.*;
@@ -152,6 +158,24 @@ public class ClassWriter extends ClassFile {
     /** Sole signature generator */
     private final CWSignatureGenerator signatureGen;
 
+    /** The number of background threads used to write class files, as
+     *  given by -XDparallelCompile=N.
+     */
+    private final ParallelCompile parallelCompile;
+
+    /** The executor writing class files in the background; created on first use.
+     */
+    private ExecutorService writerPool;
+
+    /** The class files handed to the writer pool and not yet known to be
+     *  written, in the order in which they were generated.
+     */
+    private final ListBuffer<PendingWrite> pendingWrites = new ListBuffer<>();
+
+    /** The last write handed to the writer pool since the last flush, or null.
+     */
+    private CompletableFuture<Void> lastWrite;
+
     /** The tags and constants used in compressed stackmap. */
     static final int SAME_FRAME_SIZE = 64;
     static final int SAME_LOCALS_1_STACK_ITEM_EXTENDED = 247;
@@ -188,6 +212,8 @@ public class ClassWriter extends ClassFile {
         emitSourceFile = options.isUnset(G_CUSTOM) ||
                             options.isSet(G_CUSTOM, "source");
 
+        parallelCompile = ParallelCompile.instance(context);
+
         String modifierFlags = options.get("debug.dumpmodifiers");
         if (modifierFlags != null) {
             dumpClassModifiers = modifierFlags.indexOf('c') != -1;
@@ -422,10 +448,10 @@ public class ClassWriter extends ClassFile {
                 poolbuf.appendChar(pool.put(nameType(v)));
             } else if (value instanceof Name) {
                 poolbuf.appendByte(CONSTANT_Utf8);
-                byte[] bs = ((Name)value).toUtf();
-                poolbuf.appendChar(bs.length);
-                poolbuf.appendBytes(bs, 0, bs.length);
-                if (bs.length > Pool.MAX_STRING_LENGTH)
+                Name name = (Name)value;
+                poolbuf.appendChar(name.getByteLength());
+                poolbuf.appendName(name);
+                if (name.getByteLength() > Pool.MAX_STRING_LENGTH)
                     throw new StringOverflow(value.toString());
             } else if (value instanceof ClassSymbol) {
                 ClassSymbol c = (ClassSymbol)value;
@@ -1655,11 +1681,24 @@ public class ClassWriter extends ClassFile {
         }
     }
 
-    /** Emit a class file for a given class.
+    /** Emit a class file for a given class. If class files are written
+     *  in the background, the file may not be complete until the next
+     *  call of flushPendingWrites.
      *  @param c      The class from which a class file is generated.
      */
     public JavaFileObject writeClass(ClassSymbol c)
         throws IOException, PoolOverflow, StringOverflow
+    {
+        return writeClass(c, null);
+    }
+
+    /** Emit a class file for a given class, as above.
+     *  @param c      The class from which a class file is generated.
+     *  @param pos    The position at which an error writing the file in
+     *                the background is reported.
+     */
+    public JavaFileObject writeClass(ClassSymbol c, DiagnosticPosition pos)
+        throws IOException, PoolOverflow, StringOverflow
     {
         String name = (c.owner.kind == MDL ? c.name : c.flatname).toString();
         Location outLocn;
@@ -1674,6 +1713,14 @@ public class ClassWriter extends ClassFile {
                                                name,
                                                JavaFileObject.Kind.CLASS,
                                                c.sourcefile);
+        if (parallelCompile.threads > 0) {
+            assembleClassFile(c);
+            byte[] bytes = new byte[poolbuf.length + databuf.length];
+            System.arraycopy(poolbuf.elems, 0, bytes, 0, poolbuf.length);
+            System.arraycopy(databuf.elems, 0, bytes, poolbuf.length, databuf.length);
+            scheduleWrite(c, pos, outFile, bytes);
+            return outFile;
+        }
         OutputStream out = outFile.openOutputStream();
         try {
             writeClassFile(out, c);
@@ -1692,10 +1739,141 @@ public class ClassWriter extends ClassFile {
         return outFile; // may be null if write failed
     }
 
+    /** Hand the contents of a class file to the writer pool. Any error
+     *  writing the file is reported by the next call of flushPendingWrites.
+     *  The files are written one after the other, in the order in which
+     *  they were generated, and the writes after a failed write are
+     *  dropped, so that the same files are written as when the compiler
+     *  thread writes them and stops at the first error.
+     */
+    private void scheduleWrite(ClassSymbol c, DiagnosticPosition pos,
+                               JavaFileObject outFile, byte[] bytes) {
+        if (writerPool == null) {
+            writerPool = parallelCompile.newPool("javac class writer");
+        }
+        CompletableFuture<Void> prev = (lastWrite != null)
+                ? lastWrite : CompletableFuture.completedFuture(null);
+        lastWrite = prev.thenRunAsync(() -> {
+            try {
+                OutputStream out = outFile.openOutputStream();
+                try {
+                    out.write(bytes);
+                    out.close();
+                    out = null;
+                } finally {
+                    if (out != null) {
+                        // if we are propagating an exception, delete the file
+                        out.close();
+                        outFile.delete();
+                    }
+                }
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        }, writerPool);
+        pendingWrites.append(new PendingWrite(c, pos, outFile, lastWrite));
+    }
+
+    /** Return true if a class file handed to the writer pool is known to
+     *  have failed to be written. Does not wait for pending writes.
+     */
+    public boolean writeFailed() {
+        return lastWrite != null && lastWrite.isCompletedExceptionally();
+    }
+
+    /** Wait until all class files handed to the writer pool have been
+     *  written. Only the first failed write is reported, since the writes
+     *  after it are dropped. An unexpected exception is rethrown once all
+     *  writes have completed.
+     *  @return the files that were not written
+     */
+    public List<JavaFileObject> flushPendingWrites() {
+        ListBuffer<JavaFileObject> notWritten = new ListBuffer<>();
+        Throwable failure = null;
+        boolean failed = false;
+        while (pendingWrites.nonEmpty()) {
+            PendingWrite w = pendingWrites.next();
+            JavaFileObject prev = log.useSource(w.sym.sourcefile);
+            try {
+                w.result.get();
+                if (verbose)
+                    log.printVerbose("wrote.file", w.file);
+            } catch (ExecutionException ex) {
+                notWritten.append(w.file);
+                if (!failed) {
+                    failed = true;
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof IOException) {
+                        log.error(w.pos, "class.cant.write", w.sym, cause.getMessage());
+                    } else {
+                        failure = cause;
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                notWritten.append(w.file);
+                if (failure == null)
+                    failure = new Abort(ex);
+            } finally {
+                log.useSource(prev);
+            }
+        }
+        lastWrite = null;
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException)failure;
+        } else if (failure instanceof Error) {
+            throw (Error)failure;
+        } else if (failure != null) {
+            throw new AssertionError(failure);
+        }
+        return notWritten.toList();
+    }
+
+    /** Write any pending class files and release the writer pool.
+     */
+    public void close() {
+        try {
+            flushPendingWrites();
+        } finally {
+            if (writerPool != null) {
+                writerPool.shutdown();
+                writerPool = null;
+            }
+        }
+    }
+
+    /** A class file being written by the writer pool.
+     */
+    private static class PendingWrite {
+        final ClassSymbol sym;
+        final DiagnosticPosition pos;
+        final JavaFileObject file;
+        final CompletableFuture<Void> result;
+
+        PendingWrite(ClassSymbol sym, DiagnosticPosition pos,
+                     JavaFileObject file, CompletableFuture<Void> result) {
+            this.sym = sym;
+            this.pos = pos;
+            this.file = file;
+            this.result = result;
+        }
+    }
+
     /** Write class `c' to outstream `out'.
      */
     public void writeClassFile(OutputStream out, ClassSymbol c)
         throws IOException, PoolOverflow, StringOverflow {
+        assembleClassFile(c);
+        // the class file is the header and constant pool, followed by the
+        // members and attributes: write both without joining them
+        out.write(poolbuf.elems, 0, poolbuf.length);
+        out.write(databuf.elems, 0, databuf.length);
+    }
+
+    /** Assemble the class file for class `c' in the pool and data buffers,
+     *  which are reused from one class to the next.
+     */
+    void assembleClassFile(ClassSymbol c) throws PoolOverflow, StringOverflow {
         Assert.check((c.flags() & COMPOUND) == 0);
         databuf.reset();
         poolbuf.reset();
@@ -1839,9 +2017,6 @@ public class ClassWriter extends ClassFile {
 
         endAttrs(acountIdx, acount);
 
-        poolbuf.appendBytes(databuf.elems, 0, databuf.length);
-        out.write(poolbuf.elems, 0, poolbuf.length);
-
         pool = c.pool = null; // to conserve space
      }
 
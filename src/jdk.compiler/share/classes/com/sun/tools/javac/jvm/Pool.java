@@ -65,9 +65,18 @@ public class Pool {
      */
     Object[] pool;
 
-    /** A hashtable containing all constants in the pool.
+    /** A hashtable containing all constants in the pool, using open
+     *  addressing: keys[i] is a constant, hashes[i] its hash code and
+     *  indices[i] its index in the pool. Slots with index 0 are empty,
+     *  as no constant has index 0.
      */
-    Map<Object,Integer> indices;
+    Object[] keys;
+    int[] hashes;
+    int[] indices;
+
+    /** The number of constants in the hashtable.
+     */
+    int size;
 
     Types types;
 
@@ -77,9 +86,14 @@ public class Pool {
         this.pp = pp;
         this.pool = pool;
         this.types = types;
-        this.indices = new HashMap<>(pool.length);
+        int capacity = 64;
+        while (capacity < pool.length * 2)
+            capacity <<= 1;
+        keys = new Object[capacity];
+        hashes = new int[capacity];
+        indices = new int[capacity];
         for (int i = 1; i < pp; i++) {
-            if (pool[i] != null) indices.put(pool[i], i);
+            if (pool[i] != null) enterIndex(pool[i], pool[i].hashCode(), i);
         }
     }
 
@@ -99,7 +113,9 @@ public class Pool {
      */
     public void reset() {
         pp = 1;
-        indices.clear();
+        size = 0;
+        Arrays.fill(keys, null);
+        Arrays.fill(indices, 0);
     }
 
     /** Place an object in the pool, unless it is already there.
@@ -107,22 +123,126 @@ public class Pool {
      *  package.  Return the object's index in the pool.
      */
     public int put(Object value) {
-        value = makePoolValue(value);
-        Assert.check(!(value instanceof Type.TypeVar));
-        Assert.check(!(value instanceof Types.UniqueType &&
-                       ((UniqueType) value).type instanceof Type.TypeVar));
-        Integer index = indices.get(value);
-        if (index == null) {
-            index = pp;
-            indices.put(value, index);
+        int hash;
+        if ((value instanceof MethodSymbol && !(value instanceof DynamicMethodSymbol)) ||
+                value instanceof VarSymbol) {
+            // look up fields and methods without wrapping them first;
+            // the hash code is that of the Method or Variable wrapper
+            Symbol sym = (Symbol)value;
+            hash = sym.name.hashCode() * 33 +
+                   sym.owner.hashCode() * 9 +
+                   types.hashCode(sym.type);
+            int index = getMember(sym, hash);
+            if (index != 0)
+                return index;
+            value = makePoolValue(value);
+        } else {
+            value = makePoolValue(value);
+            Assert.check(!(value instanceof Type.TypeVar));
+            Assert.check(!(value instanceof Types.UniqueType &&
+                           ((UniqueType) value).type instanceof Type.TypeVar));
+            hash = value.hashCode();
+            int index = getIndex(value, hash);
+            if (index != 0)
+                return index;
+        }
+        int index = pp;
+        enterIndex(value, hash, index);
+        pool = ArrayUtils.ensureCapacity(pool, pp);
+        pool[pp++] = value;
+        if (value instanceof Long || value instanceof Double) {
             pool = ArrayUtils.ensureCapacity(pool, pp);
-            pool[pp++] = value;
-            if (value instanceof Long || value instanceof Double) {
-                pool = ArrayUtils.ensureCapacity(pool, pp);
-                pool[pp++] = null;
+            pool[pp++] = null;
+        }
+        return index;
+    }
+
+    /** Return the index of the given constant, or 0 if it is not in the
+     *  hashtable. As in a HashMap, a constant matches an entry if their
+     *  hash codes are the same and the constant equals the entry.
+     */
+    private int getIndex(Object value, int hash) {
+        int mask = keys.length - 1;
+        for (int i = spread(hash) & mask; indices[i] != 0; i = (i + 1) & mask) {
+            if (hashes[i] == hash && (keys[i] == value || value.equals(keys[i])))
+                return indices[i];
+        }
+        return 0;
+    }
+
+    /** Return the index of the Method or Variable wrapper for the given
+     *  field or method, or 0 if it is not in the hashtable; the
+     *  comparison is the same as that done by the wrapper's equals method.
+     */
+    private int getMember(Symbol sym, int hash) {
+        boolean isMethod = sym.kind == MTH;
+        int mask = keys.length - 1;
+        for (int i = spread(hash) & mask; indices[i] != 0; i = (i + 1) & mask) {
+            if (hashes[i] != hash)
+                continue;
+            Object key = keys[i];
+            Symbol other;
+            UniqueType uniqueType;
+            if (isMethod && key instanceof Method) {
+                other = ((Method)key).getUnderlyingSymbol();
+                uniqueType = ((Method)key).uniqueType;
+            } else if (!isMethod && key instanceof Variable) {
+                other = ((Variable)key).getUnderlyingSymbol();
+                uniqueType = ((Variable)key).uniqueType;
+            } else {
+                continue;
             }
+            if (other.name == sym.name &&
+                    other.owner == sym.owner &&
+                    types.isSameType(uniqueType.type, sym.type))
+                return indices[i];
         }
-        return index.intValue();
+        return 0;
+    }
+
+    /** Map the given constant to the given index, replacing any previous
+     *  index of the constant.
+     */
+    private void enterIndex(Object value, int hash, int index) {
+        if ((size + 1) * 2 > keys.length)
+            rehash(keys.length * 2);
+        int mask = keys.length - 1;
+        int i = spread(hash) & mask;
+        while (indices[i] != 0) {
+            if (hashes[i] == hash && (keys[i] == value || value.equals(keys[i]))) {
+                indices[i] = index;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = value;
+        hashes[i] = hash;
+        indices[i] = index;
+        size++;
+    }
+
+    private void rehash(int capacity) {
+        Object[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldIndices = indices;
+        keys = new Object[capacity];
+        hashes = new int[capacity];
+        indices = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldIndices[j] != 0) {
+                int i = spread(oldHashes[j]) & mask;
+                while (indices[i] != 0)
+                    i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                hashes[i] = oldHashes[j];
+                indices[i] = oldIndices[j];
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
     }
 
     Object makePoolValue(Object o) {
@@ -150,8 +270,8 @@ public class Pool {
      *  or -1 if object is not in there.
      */
     public int get(Object o) {
-        Integer n = indices.get(o);
-        return n == null ? -1 : n.intValue();
+        int n = getIndex(o, o.hashCode());
+        return n == 0 ? -1 : n;
     }
 
     static class Method extends DelegatedSymbol<MethodSymbol> {
@@ -37,6 +37,9 @@ import java.util.MissingResourceException;
 import java.util.Queue;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 
 import javax.annotation.processing.Processor;
@@ -57,6 +60,7 @@ import com.sun.tools.javac.code.Symbol.CompletionFailure;
 import com.sun.tools.javac.code.Symbol.PackageSymbol;
 import com.sun.tools.javac.comp.*;
 import com.sun.tools.javac.comp.CompileStates.CompileState;
+import com.sun.tools.javac.file.BaseFileManager;
 import com.sun.tools.javac.file.JavacFileManager;
 import com.sun.tools.javac.jvm.*;
 import com.sun.tools.javac.parser.*;
@@ -429,6 +433,8 @@ public class JavaCompiler {
 
         verboseCompilePolicy = options.isSet("verboseCompilePolicy");
 
+        parallelCompile = ParallelCompile.instance(context);
+
         if (options.isSet("should-stop.at") &&
             CompileState.valueOf(options.get("should-stop.at")) == CompileState.ATTR)
             compilePolicy = CompilePolicy.ATTR_ONLY;
@@ -526,6 +532,12 @@ public class JavaCompiler {
      */
     public boolean verboseCompilePolicy;
 
+    /**
+     * The number of threads used to read and decode source files ahead of
+     * parsing, as given by -XDparallelCompile=N.
+     */
+    protected final ParallelCompile parallelCompile;
+
     /**
      * Policy of how far to continue compilation after errors have occurred.
      * Set this to minimum CompileState (INIT) to stop as soon as possible
@@ -644,6 +656,34 @@ public class JavaCompiler {
         }
 
 
+    /** Parse a compilation unit again after an edit of its content.
+     *  The characters between start and oldEnd of the previous content have
+     *  been replaced by those between start and newEnd of the new content.
+     *  If the edit lies within a single method, initializer or member class,
+     *  only that member is parsed again, and the compilation unit is updated
+     *  in place; otherwise the whole content is parsed again.
+     *  @param tree         The compilation unit, which must not have been entered.
+     *  @param content      The new content of the file.
+     *  @return the compilation unit for the new content
+     */
+    public JCCompilationUnit reparse(JCCompilationUnit tree, CharSequence content,
+                                     int start, int oldEnd, int newEnd) {
+        JavaFileObject filename = tree.getSourceFile();
+        log.flushSource(filename);
+        JavaFileObject prev = log.useSource(filename);
+        try {
+            JCCompilationUnit t =
+                    IncrementalParser.instance(context).reparse(tree, content, start, oldEnd, newEnd)
+                    ? tree
+                    : parse(filename, content);
+            if (t.endPositions != null)
+                log.setEndPosTable(filename, t.endPositions);
+            return t;
+        } finally {
+            log.useSource(prev);
+        }
+    }
+
     /** Parse contents of file.
      *  @param filename     The name of the file to be parsed.
      */
@@ -740,7 +780,7 @@ public class JavaCompiler {
     JavaFileObject genCode(Env<AttrContext> env, JCClassDecl cdef) throws IOException {
         try {
             if (gen.genClass(env, cdef) && (errorCount() == 0))
-                return writer.writeClass(cdef.sym);
+                return writer.writeClass(cdef.sym, cdef.pos());
         } catch (ClassWriter.PoolOverflow ex) {
             log.error(cdef.pos(), "limit.pool");
         } catch (ClassWriter.StringOverflow ex) {
@@ -966,6 +1006,14 @@ public class JavaCompiler {
             if (devVerbose)
                 ex.printStackTrace(System.err);
         } finally {
+            writer.flushPendingWrites();
+
+            String relationCacheStats = types.relationCacheStatistics();
+            if (relationCacheStats != null)
+                printNote("[" + relationCacheStats + "]");
+            for (String argumentCacheStats : ArgumentAttr.instance(context).cacheStatistics())
+                printNote("[" + argumentCacheStats + "]");
+
             if (verbose) {
                 elapsed_msec = elapsed(start_msec);
                 log.printVerbose("total", Long.toString(elapsed_msec));
@@ -1006,15 +1054,63 @@ public class JavaCompiler {
         //parse all files
         ListBuffer<JCCompilationUnit> trees = new ListBuffer<>();
         Set<JavaFileObject> filesSoFar = new HashSet<>();
+        Map<JavaFileObject, Future<?>> prefetched = prefetchFiles(fileObjects);
         for (JavaFileObject fileObject : fileObjects) {
             if (!filesSoFar.contains(fileObject)) {
                 filesSoFar.add(fileObject);
+                awaitPrefetch(prefetched.get(fileObject));
                 trees.append(parse(fileObject));
             }
         }
         return trees.toList();
     }
 
+    /**
+     * Start reading and decoding the given files in the background, if
+     * -XDparallelCompile is set. The content is left in the file manager's
+     * content cache, where it is found when the files are parsed; scanning,
+     * parsing and the reporting of any errors stay on the compiler thread,
+     * so that the trees and diagnostics do not depend on the number of
+     * threads.
+     */
+    private Map<JavaFileObject, Future<?>> prefetchFiles(Iterable<JavaFileObject> fileObjects) {
+        if (parallelCompile.threads == 0)
+            return Collections.emptyMap();
+        BaseFileManager fm = (BaseFileManager) fileManager;
+        String encodingName = fm.getEncodingName();
+        ExecutorService readerPool = parallelCompile.newPool("javac source reader");
+        Map<JavaFileObject, Future<?>> prefetched = new HashMap<>();
+        try {
+            for (JavaFileObject fileObject : fileObjects) {
+                if (!prefetched.containsKey(fileObject)) {
+                    prefetched.put(fileObject,
+                            readerPool.submit(() -> fm.prefetchContent(fileObject, encodingName)));
+                }
+            }
+        } finally {
+            // the submitted tasks still run to completion
+            readerPool.shutdown();
+        }
+        return prefetched;
+    }
+
+    /**
+     * Wait for the background read of a file to complete, so that it is not
+     * read twice. Any problem is reported when the file is read again by
+     * readSource.
+     */
+    private void awaitPrefetch(Future<?> f) {
+        if (f == null)
+            return;
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // ignore, the file is read by readSource
+        }
+    }
+
     /**
      * Enter the symbols found in a list of parse trees if the compilation
      * is expected to proceed beyond anno processing into attr.
@@ -1601,7 +1697,16 @@ public class JavaCompiler {
                 printNote("[generate " + (sourceOutput ? " source" : "code") + " " + cdef.sym + "]");
             }
 
+            if (writer.writeFailed()) {
+                // stop, as when the class files are written on this thread
+                flushPendingWrites(results);
+                return;
+            }
+
             if (!taskListener.isEmpty()) {
+                // listeners may read the class file when generation is finished
+                if (!flushPendingWrites(results))
+                    return;
                 TaskEvent e = new TaskEvent(TaskEvent.Kind.GENERATE, env.toplevel, cdef.sym);
                 taskListener.started(e);
             }
@@ -1631,10 +1736,28 @@ public class JavaCompiler {
             }
 
             if (!taskListener.isEmpty()) {
+                // listeners may read the class file when generation is finished
+                if (!flushPendingWrites(results))
+                    return;
                 TaskEvent e = new TaskEvent(TaskEvent.Kind.GENERATE, env.toplevel, cdef.sym);
                 taskListener.finished(e);
             }
         }
+
+        // callers asking for the generated files expect them to be complete
+        if (results != null)
+            flushPendingWrites(results);
+    }
+
+    /** Wait for the class files written in the background, and leave the
+     *  files that were not written out of the results.
+     *  @return true if all files were written
+     */
+    private boolean flushPendingWrites(Queue<JavaFileObject> results) {
+        List<JavaFileObject> notWritten = writer.flushPendingWrites();
+        if (results != null)
+            results.removeAll(notWritten);
+        return notWritten.isEmpty();
     }
 
         // where
@@ -1763,6 +1886,8 @@ public class JavaCompiler {
         finder = null;
         reader = null;
         make = null;
+        if (writer != null)
+            writer.close();
         writer = null;
         enter = null;
         if (todo != null)
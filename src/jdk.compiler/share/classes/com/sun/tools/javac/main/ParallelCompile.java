@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.javac.main;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.tools.JavaFileManager;
+
+import com.sun.tools.javac.file.BaseFileManager;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Options;
+
+/**
+ * The number of background threads that may read source files and write
+ * class files, as given by -XDparallelCompile=N.
+ *
+ * <p><b>This is NOT part of any supported API.
+ * If you write code that depends on this, you do so at your own risk.
+ * This code and its internal interfaces are subject to change or
+ * deletion without notice.</b>
+ */
+public class ParallelCompile {
+
+    /**
+     * The context key for the parallel compile settings.
+     */
+    protected static final Context.Key<ParallelCompile> parallelCompileKey = new Context.Key<>();
+
+    /**
+     * The number of background threads, or zero if all files are read and
+     * written by the compiler thread.
+     */
+    public final int threads;
+
+    /**
+     * Gets the parallel compile settings for a context.
+     * @param context the context
+     * @return the settings
+     */
+    public static ParallelCompile instance(Context context) {
+        ParallelCompile instance = context.get(parallelCompileKey);
+        if (instance == null)
+            instance = new ParallelCompile(context);
+        return instance;
+    }
+
+    protected ParallelCompile(Context context) {
+        context.put(parallelCompileKey, this);
+
+        // Only the compiler's own file manager is known to tolerate file
+        // objects being read and written from threads other than the
+        // compiler thread.
+        int n = 0;
+        String value = Options.instance(context).get("parallelCompile");
+        if (value != null && context.get(JavaFileManager.class) instanceof BaseFileManager) {
+            try {
+                n = Math.max(0, Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                // ignore, use the compiler thread only
+            }
+        }
+        threads = n;
+    }
+
+    /**
+     * Create a pool of {@link #threads} daemon threads with the given name.
+     * @param name the name of the threads
+     * @return the pool
+     */
+    public ExecutorService newPool(String name) {
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
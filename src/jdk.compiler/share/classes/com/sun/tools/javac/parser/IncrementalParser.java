@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.javac.parser;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.parser.JavacParser.SimpleEndPosTable;
+import com.sun.tools.javac.parser.Tokens.Comment;
+import com.sun.tools.javac.tree.DocCommentTable;
+import com.sun.tools.javac.tree.EndPosTable;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.JCBlock;
+import com.sun.tools.javac.tree.JCTree.JCClassDecl;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.tree.JCTree.JCMethodDecl;
+import com.sun.tools.javac.tree.TreeInfo;
+import com.sun.tools.javac.tree.TreeScanner;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Log;
+import com.sun.tools.javac.util.Log.DeferredDiagnosticHandler;
+import com.sun.tools.javac.util.Position;
+
+import static com.sun.tools.javac.tree.JCTree.Tag.*;
+
+/**
+ * Support for parsing a compilation unit again after an edit of its text.
+ * If the edit lies within a single method, initializer or member class,
+ * only that member is parsed again, and the compilation unit is updated in
+ * place: the positions, end positions and doc comments of the trees that
+ * follow the member are shifted by the change in length of the text.
+ *
+ * <p><b>This is NOT part of any supported API.
+ * If you write code that depends on this, you do so at your own risk.
+ * This code and its internal interfaces are subject to change or
+ * deletion without notice.</b>
+ */
+public class IncrementalParser {
+
+    /** The context key for the incremental parser. */
+    protected static final Context.Key<IncrementalParser> incrementalParserKey = new Context.Key<>();
+
+    public static IncrementalParser instance(Context context) {
+        IncrementalParser instance = context.get(incrementalParserKey);
+        if (instance == null) {
+            instance = new IncrementalParser(context);
+        }
+        return instance;
+    }
+
+    final ParserFactory parserFactory;
+    final Log log;
+
+    protected IncrementalParser(Context context) {
+        context.put(incrementalParserKey, this);
+        parserFactory = ParserFactory.instance(context);
+        log = Log.instance(context);
+    }
+
+    /**
+     * Update a compilation unit after an edit of its text, if the edit lies
+     * within a single method, initializer or member class. The characters
+     * between start and oldEnd of the previous content have been replaced
+     * by those between start and newEnd of the given content. The compilation
+     * unit must have been parsed with end positions, and not yet entered.
+     * The current source of the log should be the file being parsed.
+     *
+     * @return true if the compilation unit was updated, or false if it was
+     *         left unchanged and must be parsed again as a whole
+     */
+    public boolean reparse(JCCompilationUnit toplevel, CharSequence content,
+                           int start, int oldEnd, int newEnd) {
+        if (toplevel.packge != null
+                || !(toplevel.endPositions instanceof SimpleEndPosTable)
+                || ((SimpleEndPosTable) toplevel.endPositions).errorEndPos != Position.NOPOS
+                || (toplevel.docComments != null && !(toplevel.docComments instanceof LazyDocCommentTable))
+                || start < 0 || start > oldEnd || start > newEnd || newEnd > content.length())
+            return false;
+        EndPosTable endPositions = toplevel.endPositions;
+        DocCommentTable docComments = toplevel.docComments;
+
+        // find the innermost member of a class enclosing the edit
+        JCClassDecl owner = null;
+        JCTree member = null;
+        for (JCTree def : toplevel.defs) {
+            if (def.hasTag(CLASSDEF) && encloses(def, endPositions, start, oldEnd)) {
+                JCClassDecl c = (JCClassDecl) def;
+                while (c != null) {
+                    JCClassDecl inner = null;
+                    for (JCTree d : c.defs) {
+                        if (encloses(d, endPositions, start, oldEnd)) {
+                            if (d.hasTag(METHODDEF) || d.hasTag(BLOCK) || d.hasTag(CLASSDEF)) {
+                                owner = c;
+                                member = d;
+                                if (d.hasTag(CLASSDEF))
+                                    inner = (JCClassDecl) d;
+                            }
+                            break;
+                        }
+                    }
+                    c = inner;
+                }
+                break;
+            }
+        }
+        if (member == null)
+            return false;
+
+        // parse the new text of the member, everything else being blanked
+        // out, so that the positions of the new trees need no adjustment
+        int memberStart = TreeInfo.getStartPos(member);
+        int memberEnd = endPositions.getEndPos(member);
+        int delta = newEnd - oldEnd;
+        char[] chars = content.toString().toCharArray();
+        if (memberEnd + delta > chars.length)
+            return false;
+        char[] buf = new char[chars.length + 1];
+        Arrays.fill(buf, ' ');
+        System.arraycopy(chars, memberStart, buf, memberStart, memberEnd + delta - memberStart);
+        JavacParser parser = null;
+        JCCompilationUnit unit;
+        DeferredDiagnosticHandler diagHandler = new DeferredDiagnosticHandler(log);
+        try {
+            parser = parserFactory.newParser(CharBuffer.wrap(buf, 0, chars.length),
+                    docComments != null, true, false);
+            unit = parser.parseClassMember(owner.name, (owner.mods.flags & Flags.INTERFACE) != 0);
+        } finally {
+            log.popDiagnosticHandler(diagHandler);
+        }
+        if (unit == null || !diagHandler.getDiagnostics().isEmpty()
+                || unit.defs.size() != 1 || !unit.defs.head.hasTag(member.getTag()))
+            return false;
+        JCTree newMember = unit.defs.head;
+
+        // the doc comment of the member lies before it, and was not parsed again
+        if (docComments != null && docComments.hasComment(member))
+            unit.docComments.putComment(newMember, docComments.getComment(member));
+        setFlags(newMember, flags(newMember) | (flags(member) & Flags.DEPRECATED));
+
+        // move the trees outside the member to the new tables, shifting
+        // those that follow it
+        EndPosTable newEndPositions = unit.endPositions;
+        DocCommentTable newDocComments = unit.docComments;
+        JCTree replaced = member;
+        new TreeScanner() {
+            // some trees, like the modifiers of variables declared together,
+            // are shared
+            final Set<JCTree> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+            @Override
+            public void scan(JCTree tree) {
+                if (tree == null || tree == replaced || !seen.add(tree))
+                    return;
+                int endPos = endPositions.getEndPos(tree);
+                if (endPos != Position.NOPOS)
+                    newEndPositions.storeEnd(tree, shift(endPos));
+                if (docComments != null && docComments.hasComment(tree))
+                    newDocComments.putComment(tree, shift(docComments.getComment(tree)));
+                tree.pos = shift(tree.pos);
+                if (tree.hasTag(BLOCK)) {
+                    JCBlock block = (JCBlock) tree;
+                    block.endpos = shift(block.endpos);
+                }
+                super.scan(tree);
+            }
+
+            int shift(int pos) {
+                return pos >= memberEnd ? pos + delta : pos;
+            }
+
+            Comment shift(Comment c) {
+                return c.getSourcePos(0) >= memberEnd ? ShiftedComment.of(c, delta) : c;
+            }
+        }.scan(toplevel);
+
+        owner.defs = owner.defs.map(def -> def == replaced ? newMember : def);
+        toplevel.endPositions = newEndPositions;
+        if (docComments != null)
+            toplevel.docComments = newDocComments;
+        if (toplevel.lineMap != null)
+            toplevel.lineMap = Position.makeLineMap(chars, chars.length, false);
+        return true;
+    }
+
+    /** Does the text of a tree enclose the given range, but for its
+     *  first and last characters?
+     */
+    private static boolean encloses(JCTree tree, EndPosTable endPositions, int start, int end) {
+        int endPos = endPositions.getEndPos(tree);
+        return endPos != Position.NOPOS && TreeInfo.getStartPos(tree) < start && end < endPos;
+    }
+
+    private static long flags(JCTree tree) {
+        switch (tree.getTag()) {
+            case METHODDEF: return ((JCMethodDecl) tree).mods.flags;
+            case CLASSDEF: return ((JCClassDecl) tree).mods.flags;
+            case BLOCK: return ((JCBlock) tree).flags;
+            default: throw new AssertionError(tree);
+        }
+    }
+
+    private static void setFlags(JCTree tree, long flags) {
+        switch (tree.getTag()) {
+            case METHODDEF: ((JCMethodDecl) tree).mods.flags = flags; break;
+            case CLASSDEF: ((JCClassDecl) tree).mods.flags = flags; break;
+            case BLOCK: ((JCBlock) tree).flags = flags; break;
+            default: throw new AssertionError(tree);
+        }
+    }
+
+    /** A comment whose text has moved by a given distance.
+     */
+    private static class ShiftedComment implements Comment {
+        final Comment comment;
+        final int delta;
+
+        private ShiftedComment(Comment comment, int delta) {
+            this.comment = comment;
+            this.delta = delta;
+        }
+
+        static Comment of(Comment c, int delta) {
+            if (delta == 0)
+                return c;
+            if (c instanceof ShiftedComment) {
+                ShiftedComment s = (ShiftedComment) c;
+                return of(s.comment, s.delta + delta);
+            }
+            return new ShiftedComment(c, delta);
+        }
+
+        public String getText() {
+            return comment.getText();
+        }
+
+        public int getSourcePos(int index) {
+            return comment.getSourcePos(index) + delta;
+        }
+
+        public CommentStyle getStyle() {
+            return comment.getStyle();
+        }
+
+        public boolean isDeprecated() {
+            return comment.isDeprecated();
+        }
+    }
+}
@@ -350,7 +350,22 @@ public class JavaTokenizer {
     private void scanIdent() {
         boolean isJavaIdentifierPart;
         char high;
-        reader.putChar(true);
+        if (reader.sp == 0 && reader.ch < '\u0080' && !reader.isUnicode()) {
+            // fast path: most identifiers are plain ASCII, and can be
+            // entered in the name table directly from the input buffer
+            int start = reader.bp;
+            int end = reader.skipAsciiIdentifierChars();
+            if (!reader.isUnicode() && isIdentifierEnd(reader.ch)) {
+                name = reader.name(start, end);
+                tk = tokens.lookupKind(name);
+                return;
+            }
+            for (int i = start; i < end; i++) {
+                reader.putChar(reader.buf[i]);
+            }
+        } else {
+            reader.putChar(true);
+        }
         do {
             switch (reader.ch) {
             case 'A': case 'B': case 'C': case 'D': case 'E':
@@ -415,6 +430,25 @@ public class JavaTokenizer {
         } while (true);
     }
 
+    /** Return true if ch, which is not the result of a unicode escape,
+     *  certainly ends an identifier made of ASCII characters: that is, if
+     *  it is an ASCII character that scanIdent neither appends to nor
+     *  ignores in an identifier.
+     */
+    private boolean isIdentifierEnd(char ch) {
+        switch (ch) {
+        case ' ': case '\t': case FF: case LF: case CR:
+        case '(': case ')': case '[': case ']': case '{': case '}':
+        case ';': case ',': case '.': case '@':
+        case '=': case '>': case '<': case '!': case '~': case '?': case ':':
+        case '+': case '-': case '*': case '/': case '&': case '|':
+        case '^': case '%': case '"': case '\'':
+            return true;
+        default:
+            return false;
+        }
+    }
+
     /** Return true if reader.ch can be part of an operator.
      */
     private boolean isSpecial(char ch) {
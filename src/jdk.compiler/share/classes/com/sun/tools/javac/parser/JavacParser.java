@@ -3203,6 +3203,27 @@ public class JavacParser implements Parser {
         return toplevel;
     }
 
+    /** Parse the input as the declaration of a single member of the class
+     *  with the given name; used to parse a member again after an edit (see
+     *  IncrementalParser). Returns a compilation unit holding the parsed
+     *  declarations, together with their end positions and doc comments, or
+     *  null if the input does not end after the declaration.
+     */
+    JCTree.JCCompilationUnit parseClassMember(Name className, boolean isInterface) {
+        int pos = token.pos;
+        List<JCTree> defs = classOrInterfaceBodyDeclaration(className, isInterface);
+        if (token.kind != EOF)
+            return null;
+        // TopLevel only accepts top level definitions
+        JCTree.JCCompilationUnit toplevel = F.at(pos).TopLevel(List.nil());
+        toplevel.defs = defs;
+        if (keepDocComments)
+            toplevel.docComments = docComments;
+        this.endPosTable.setParser(null); // remove reference to parser
+        toplevel.endPositions = this.endPosTable;
+        return toplevel;
+    }
+
     JCModuleDecl moduleDecl(JCModifiers mods, ModuleKind kind, Comment dc) {
         int pos = token.pos;
         if (!allowModules) {
@@ -147,6 +147,35 @@ public class UnicodeReader {
         return names.fromChars(sbuf, 0, sp);
     }
 
+    /** The name made of the characters of the input buffer between
+     *  start (inclusive) and end (exclusive), without copying them to sbuf.
+     */
+    Name name(int start, int end) {
+        return names.fromChars(buf, start, end - start);
+    }
+
+    /** Is ch an ASCII letter, digit, '$' or '_'?
+     */
+    static boolean isAsciiIdentifierPart(char ch) {
+        return ('a' <= ch && ch <= 'z') || ('A' <= ch && ch <= 'Z') ||
+                ('0' <= ch && ch <= '9') || ch == '$' || ch == '_';
+    }
+
+    /** Skip the run of ASCII identifier characters following the current
+     *  character, and read the character after it, as repeated calls of
+     *  scanChar would. The characters are read straight from buf, which is
+     *  safe as none of them can start a unicode escape.
+     *  @return the buffer index one past the last character skipped
+     */
+    protected int skipAsciiIdentifierChars() {
+        int end = bp + 1;
+        while (end < buflen && isAsciiIdentifierPart(buf[end]))
+            end++;
+        bp = end - 1;
+        scanChar();
+        return end;
+    }
+
     String chars() {
         return new String(sbuf, 0, sp);
     }
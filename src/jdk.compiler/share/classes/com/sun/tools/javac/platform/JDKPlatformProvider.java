@@ -38,11 +38,11 @@ import java.nio.file.ProviderNotFoundException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 import javax.annotation.processing.Processor;
@@ -73,13 +73,22 @@ public class JDKPlatformProvider implements PlatformProvider {
 
     private static final Set<String> SUPPORTED_JAVA_PLATFORM_VERSIONS;
 
+    /** The file system for ct.sym, opened on first use and shared by all
+     *  compilations in the VM. It is never closed: the paths handed out by
+     *  getPlatformPath refer to it, and ct.sym does not change while the VM
+     *  is running.
+     */
+    private static FileSystem ctSymFileSystem;
+
+    /** The platform paths computed so far, by version. */
+    private static final Map<String, List<Path>> platformPaths = new ConcurrentHashMap<>();
+
     static {
         SUPPORTED_JAVA_PLATFORM_VERSIONS = new TreeSet<>();
         Path ctSymFile = findCtSym();
         if (Files.exists(ctSymFile)) {
-            try (FileSystem fs = FileSystems.newFileSystem(ctSymFile, null);
-                 DirectoryStream<Path> dir =
-                         Files.newDirectoryStream(fs.getRootDirectories().iterator().next())) {
+            try (DirectoryStream<Path> dir =
+                         Files.newDirectoryStream(getCtSymRoot(ctSymFile))) {
                 for (Path section : dir) {
                     for (char ver : section.getFileName().toString().toCharArray()) {
                         String verString = Character.toString(ver);
@@ -99,9 +108,15 @@ public class JDKPlatformProvider implements PlatformProvider {
         return Integer.toString(target.ordinal() - Target.JDK1_1.ordinal() + 1);
     }
 
+    private static synchronized Path getCtSymRoot(Path ctSymFile) throws IOException {
+        if (ctSymFileSystem == null) {
+            ctSymFileSystem = FileSystems.newFileSystem(ctSymFile, null);
+        }
+        return ctSymFileSystem.getRootDirectories().iterator().next();
+    }
+
     static class PlatformDescriptionImpl implements PlatformDescription {
 
-        private final Map<Path, FileSystem> ctSym2FileSystem = new HashMap<>();
         private final String version;
 
         PlatformDescriptionImpl(String version) {
@@ -110,19 +125,27 @@ public class JDKPlatformProvider implements PlatformProvider {
 
         @Override
         public Collection<Path> getPlatformPath() {
+            // concurrent requests for the same version may both compute the
+            // path; the results are equal, and either may be kept
+            List<Path> paths = platformPaths.get(version);
+            if (paths == null) {
+                paths = Collections.unmodifiableList(computePlatformPath());
+                platformPaths.put(version, paths);
+            }
+            return paths;
+        }
+
+        private List<Path> computePlatformPath() {
             List<Path> paths = new ArrayList<>();
             Path file = findCtSym();
             // file == ${jdk.home}/lib/ct.sym
             if (Files.exists(file)) {
-                FileSystem fs = ctSym2FileSystem.get(file);
-                if (fs == null) {
-                    try {
-                        ctSym2FileSystem.put(file, fs = FileSystems.newFileSystem(file, null));
-                    } catch (IOException ex) {
-                        throw new IllegalStateException(ex);
-                    }
+                Path root;
+                try {
+                    root = getCtSymRoot(file);
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
                 }
-                Path root = fs.getRootDirectories().iterator().next();
                 try (DirectoryStream<Path> dir = Files.newDirectoryStream(root)) {
                     for (Path section : dir) {
                         if (section.getFileName().toString().contains(version)) {
@@ -179,10 +202,7 @@ public class JDKPlatformProvider implements PlatformProvider {
 
         @Override
         public void close() throws IOException {
-            for (FileSystem fs : ctSym2FileSystem.values()) {
-                fs.close();
-            }
-            ctSym2FileSystem.clear();
+            // the ct.sym file system is shared, see ctSymFileSystem
         }
 
     }
@@ -123,11 +123,14 @@ public class JavacFiler implements Filer, Closeable {
         private boolean opened = false;
         private ModuleSymbol mod;
         private String name;
+        private ProcessingStatistics.OutputRecord output;
 
         FilerOutputFileObject(ModuleSymbol mod, String name, FileObject fileObject) {
             super(fileObject);
             this.mod = mod;
             this.name = name;
+            if (statistics != null)
+                output = statistics.fileCreated(fileObject);
         }
 
         @Override @DefinedBy(Api.COMPILER)
@@ -135,7 +138,12 @@ public class JavacFiler implements Filer, Closeable {
             if (opened)
                 throw new IOException(ALREADY_OPENED);
             opened = true;
-            return new FilerOutputStream(mod, name, fileObject);
+            long[] start = writeStarted(output);
+            try {
+                return new FilerOutputStream(mod, name, fileObject, output);
+            } finally {
+                writeFinished(output, start);
+            }
         }
 
         @Override @DefinedBy(Api.COMPILER)
@@ -143,7 +151,12 @@ public class JavacFiler implements Filer, Closeable {
             if (opened)
                 throw new IOException(ALREADY_OPENED);
             opened = true;
-            return new FilerWriter(mod, name, fileObject);
+            long[] start = writeStarted(output);
+            try {
+                return new FilerWriter(mod, name, fileObject, output);
+            } finally {
+                writeFinished(output, start);
+            }
         }
 
         // Three anti-literacy methods
@@ -260,17 +273,51 @@ public class JavacFiler implements Filer, Closeable {
         ModuleSymbol mod;
         String typeName;
         FileObject fileObject;
+        ProcessingStatistics.OutputRecord output;
         boolean closed = false;
 
         /**
          * @param typeName name of class or {@code null} if just a
          * binary file
+         * @param output the record of the writes, or {@code null}
          */
-        FilerOutputStream(ModuleSymbol mod, String typeName, FileObject fileObject) throws IOException {
+        FilerOutputStream(ModuleSymbol mod, String typeName, FileObject fileObject,
+                          ProcessingStatistics.OutputRecord output) throws IOException {
             super(fileObject.openOutputStream());
             this.mod = mod;
             this.typeName = typeName;
             this.fileObject = fileObject;
+            this.output = output;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long[] start = writeStarted(output);
+            try {
+                out.write(b);
+            } finally {
+                writeFinished(output, start);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long[] start = writeStarted(output);
+            try {
+                out.write(b, off, len);
+            } finally {
+                writeFinished(output, start);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            long[] start = writeStarted(output);
+            try {
+                out.flush();
+            } finally {
+                writeFinished(output, start);
+            }
         }
 
         public synchronized void close() throws IOException {
@@ -282,7 +329,12 @@ public class JavacFiler implements Filer, Closeable {
                  */
 
                 closeFileObject(mod, typeName, fileObject);
-                out.close();
+                long[] start = writeStarted(output);
+                try {
+                    out.close();
+                } finally {
+                    writeFinished(output, start);
+                }
             }
         }
     }
@@ -296,18 +348,62 @@ public class JavacFiler implements Filer, Closeable {
         ModuleSymbol mod;
         String typeName;
         FileObject fileObject;
+        ProcessingStatistics.OutputRecord output;
         boolean closed = false;
 
         /**
          * @param fileObject the fileObject to be written to
          * @param typeName name of source file or {@code null} if just a
          * text file
+         * @param output the record of the writes, or {@code null}
          */
-        FilerWriter(ModuleSymbol mod, String typeName, FileObject fileObject) throws IOException {
+        FilerWriter(ModuleSymbol mod, String typeName, FileObject fileObject,
+                    ProcessingStatistics.OutputRecord output) throws IOException {
             super(fileObject.openWriter());
             this.mod = mod;
             this.typeName = typeName;
             this.fileObject = fileObject;
+            this.output = output;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            long[] start = writeStarted(output);
+            try {
+                out.write(c);
+            } finally {
+                writeFinished(output, start);
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            long[] start = writeStarted(output);
+            try {
+                out.write(cbuf, off, len);
+            } finally {
+                writeFinished(output, start);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            long[] start = writeStarted(output);
+            try {
+                out.write(str, off, len);
+            } finally {
+                writeFinished(output, start);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            long[] start = writeStarted(output);
+            try {
+                out.flush();
+            } finally {
+                writeFinished(output, start);
+            }
         }
 
         public synchronized void close() throws IOException {
@@ -319,11 +415,29 @@ public class JavacFiler implements Filer, Closeable {
                  */
 
                 closeFileObject(mod, typeName, fileObject);
-                out.close();
+                long[] start = writeStarted(output);
+                try {
+                    out.close();
+                } finally {
+                    writeFinished(output, start);
+                }
             }
         }
     }
 
+    /*
+     * The writes to a file created through the filer are timed for
+     * -XDprocessingStats, when the file has a record.
+     */
+    private static long[] writeStarted(ProcessingStatistics.OutputRecord output) {
+        return (output != null) ? output.writeStarted() : null;
+    }
+
+    private static void writeFinished(ProcessingStatistics.OutputRecord output, long[] start) {
+        if (output != null)
+            output.writeFinished(start);
+    }
+
     JavaFileManager fileManager;
     JavacElements elementUtils;
     Log log;
@@ -388,6 +502,11 @@ public class JavacFiler implements Filer, Closeable {
 
     private final String defaultTargetModule;
 
+    /**
+     * Records the files created by each processor, if requested.
+     */
+    private ProcessingStatistics statistics;
+
     JavacFiler(Context context) {
         this.context = context;
         fileManager = context.get(JavaFileManager.class);
@@ -740,8 +859,9 @@ public class JavacFiler implements Filer, Closeable {
                 log.warning("proc.file.reopening", fileObject.getName());
             throw new FilerException("Attempt to reopen a file for path " + fileObject.getName());
         }
-        if (forWriting)
+        if (forWriting) {
             fileObjectHistory.add(fileObject);
+        }
     }
 
     private boolean isInFileObjectHistory(FileObject fileObject, boolean forWriting) {
@@ -811,6 +931,10 @@ public class JavacFiler implements Filer, Closeable {
         this.lastRound = lastRound;
     }
 
+    void setStatistics(ProcessingStatistics statistics) {
+        this.statistics = statistics;
+    }
+
     public void setInitialState(Collection<? extends JavaFileObject> initialInputs,
                                 Collection<String> initialClassNames) {
         this.initialInputs.addAll(initialInputs);
@@ -33,6 +33,7 @@ import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.regex.*;
@@ -116,6 +117,9 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
     private final boolean werror;
     private final boolean showResolveErrors;
     private final boolean allowModules;
+    private final boolean incrementalRounds;
+    private final boolean roundStatistics;
+    private final ProcessingStatistics statistics;
 
     private final JavacFiler filer;
     private final JavacMessager messager;
@@ -209,6 +213,18 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
         }
         fatalErrors = options.isSet("fatalEnterError");
         showResolveErrors = options.isSet("showResolveErrors");
+        incrementalRounds = options.isSet("incrementalRounds");
+        roundStatistics = options.isSet("processingRoundStats");
+        String statisticsFile = options.get("processingStats");
+        if ("processingStats".equals(statisticsFile)) {
+            // a bare -XDprocessingStats, rather than -XDprocessingStats=file
+            log.printRawLines(Log.WriterKind.NOTICE,
+                    "[-XDprocessingStats requires a file: -XDprocessingStats=<file>]");
+            statisticsFile = null;
+        }
+        statistics = (statisticsFile != null || roundStatistics)
+                ? new ProcessingStatistics(statisticsFile != null ? Paths.get(statisticsFile) : null)
+                : null;
         werror = options.isSet(Option.WERROR);
         fileManager = context.get(JavaFileManager.class);
         platformAnnotations = initPlatformAnnotations();
@@ -216,6 +232,7 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
         // Initialize services before any processors are initialized
         // in case processors use them.
         filer = new JavacFiler(context);
+        filer.setStatistics(statistics);
         messager = new JavacMessager(context, this);
         elementUtils = JavacElements.instance(context);
         typeUtils = JavacTypes.instance(context);
@@ -964,8 +981,12 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
     private boolean callProcessor(Processor proc,
                                          Set<? extends TypeElement> tes,
                                          RoundEnvironment renv) {
+        if (statistics != null)
+            statistics.processorStarted(proc);
+        boolean result = false;
         try {
-            return proc.process(tes, renv);
+            result = proc.process(tes, renv);
+            return result;
         } catch (ClassFinder.BadClassFile ex) {
             log.error("proc.cant.access.1", ex.sym, ex.getDetailValue());
             return false;
@@ -978,6 +999,9 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
             throw e;
         } catch (Throwable t) {
             throw new AnnotationProcessingError(t);
+        } finally {
+            if (statistics != null)
+                statistics.processorFinished(result);
         }
     }
 
@@ -1006,6 +1030,13 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
         /** The set of module-info files to be processed this round. */
         List<ModuleSymbol> moduleInfoFiles;
 
+        /** Whether any diagnostics were reported while preparing or running this round. */
+        boolean hadDiagnostics;
+        /** Whether this round reuses the trees and symbols entered for the previous round. */
+        boolean reusedPreviousRound;
+        /** The time spent preparing this round, and running the processors, in nanoseconds. */
+        long prepareNanos;
+
         /** Create a round (common code). */
         private Round(int number, Set<JCCompilationUnit> treesToClean,
                 Log.DeferredDiagnosticHandler deferredDiagnosticHandler) {
@@ -1052,9 +1083,36 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
         private Round(Round prev,
                 Set<JavaFileObject> newSourceFiles, Map<ModuleSymbol, Map<String,JavaFileObject>> newClassFiles) {
             this(prev.number+1, prev.treesToClean, null);
-            prev.newRound();
+            long start = System.nanoTime();
             this.genClassFiles = prev.genClassFiles;
 
+            if (incrementalRounds && newSourceFiles.isEmpty() && newClassFiles.isEmpty()
+                    && !prev.hadDiagnostics) {
+                // This is the last round. Nothing was generated or reported in the
+                // previous round, so entering the same trees again would give the
+                // same symbols and no diagnostics: keep those of the previous round.
+                // The final compiler is prepared by newRound, as usual.
+                filer.newRound();
+                messager.newRound();
+                roots = prev.roots;
+                reusedPreviousRound = true;
+                findAnnotationsPresent();
+                prepareNanos = System.nanoTime() - start;
+                return;
+            }
+
+            try {
+                enterRound(prev, newSourceFiles, newClassFiles);
+            } finally {
+                prepareNanos = System.nanoTime() - start;
+            }
+        }
+
+        /** Clean up after the previous round, and enter the trees and class files for this round. */
+        private void enterRound(Round prev,
+                Set<JavaFileObject> newSourceFiles, Map<ModuleSymbol, Map<String,JavaFileObject>> newClassFiles) {
+            prev.newRound();
+
             List<JCCompilationUnit> parsedFiles = compiler.parseFiles(newSourceFiles);
             roots = prev.roots.appendList(parsedFiles);
 
@@ -1193,6 +1251,8 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
             if (!taskListener.isEmpty())
                 taskListener.started(new TaskEvent(TaskEvent.Kind.ANNOTATION_PROCESSING_ROUND));
 
+            if (statistics != null)
+                statistics.roundStarted(number, reusedPreviousRound, prepareNanos);
             try {
                 if (lastRound) {
                     filer.setLastRound(true);
@@ -1214,12 +1274,18 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
                 compiler.setDeferredDiagnosticHandler(null);
                 throw t;
             } finally {
+                if (statistics != null)
+                    statistics.roundFinished();
                 if (!taskListener.isEmpty())
                     taskListener.finished(new TaskEvent(TaskEvent.Kind.ANNOTATION_PROCESSING_ROUND));
+                // the time spent in this round, as requested by -XDprocessingRoundStats
+                if (roundStatistics)
+                    log.printRawLines(Log.WriterKind.NOTICE, "[" + statistics.lastRoundSummary() + "]");
             }
         }
 
         void showDiagnostics(boolean showAll) {
+            hadDiagnostics = !deferredDiagnosticHandler.getDiagnostics().isEmpty();
             Set<JCDiagnostic.Kind> kinds = EnumSet.allOf(JCDiagnostic.Kind.class);
             if (!showAll) {
                 // suppress errors, which are all presumed to be transient resolve errors
@@ -1368,6 +1434,9 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
 
         errorStatus = errorStatus || (compiler.errorCount() > 0);
 
+        if (statistics != null)
+            writeStatistics();
+
         // Free resources
         this.close();
 
@@ -1383,6 +1452,16 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
         return true;
     }
 
+    /** Write the report requested by -XDprocessingStats. */
+    private void writeStatistics() {
+        try {
+            statistics.write();
+        } catch (IOException e) {
+            log.printRawLines(Log.WriterKind.NOTICE,
+                    "[cannot write processing statistics: " + e.getMessage() + "]");
+        }
+    }
+
     private void warnIfUnmatchedOptions() {
         if (!unmatchedProcessorOptions.isEmpty()) {
             log.warning("proc.unmatched.processor.options", unmatchedProcessorOptions.toString());
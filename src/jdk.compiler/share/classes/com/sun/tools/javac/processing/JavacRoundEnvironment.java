@@ -56,6 +56,11 @@ public class JavacRoundEnvironment implements RoundEnvironment {
     // Caller must pass in an immutable set
     private final Set<? extends Element> rootElements;
 
+    // The elements included in this round that have annotations, in the order
+    // in which they are found, and the annotation types of each; computed on
+    // first use, and shared by all processors run in the round
+    private Map<Element, Set<Element>> annotatedElements;
+
     JavacRoundEnvironment(boolean processingOver,
                           boolean errorRaised,
                           Set<? extends Element> rootElements,
@@ -118,13 +123,14 @@ public class JavacRoundEnvironment implements RoundEnvironment {
     public Set<? extends Element> getElementsAnnotatedWith(TypeElement a) {
         throwIfNotAnnotation(a);
 
-        Set<Element> result = Collections.emptySet();
-        ElementScanner9<Set<Element>, TypeElement> scanner =
-            new AnnotationSetScanner(result);
-
-        for (Element element : rootElements)
-            result = scanner.scan(element, a);
+        if (rootElements.isEmpty())
+            return Collections.emptySet();
 
+        Set<Element> result = new LinkedHashSet<>();
+        for (Map.Entry<Element, Set<Element>> entry : annotatedElements().entrySet()) {
+            if (entry.getValue().contains(a))
+                result.add(entry.getKey());
+        }
         return result;
     }
 
@@ -139,59 +145,52 @@ public class JavacRoundEnvironment implements RoundEnvironment {
             annotationSet.add(annotation);
         }
 
-        Set<Element> result = Collections.emptySet();
-        ElementScanner9<Set<Element>, Set<TypeElement>> scanner =
-            new AnnotationSetMultiScanner(result);
-
-        for (Element element : rootElements)
-            result = scanner.scan(element, annotationSet);
+        if (rootElements.isEmpty())
+            return Collections.emptySet();
 
+        Set<Element> result = new LinkedHashSet<>();
+        for (Map.Entry<Element, Set<Element>> entry : annotatedElements().entrySet()) {
+            if (!Collections.disjoint(entry.getValue(), annotationSet))
+                result.add(entry.getKey());
+        }
         return result;
     }
 
-    // Could be written as a local class inside getElementsAnnotatedWith
-    private class AnnotationSetScanner extends
-        ElementScanningIncludingTypeParameters<Set<Element>, TypeElement> {
-        // Insertion-order preserving set
-        private Set<Element> annotatedElements = new LinkedHashSet<>();
-
-        AnnotationSetScanner(Set<Element> defaultSet) {
-            super(defaultSet);
-        }
-
-        @Override @DefinedBy(Api.LANGUAGE_MODEL)
-        public Set<Element> scan(Element e, TypeElement annotation) {
-            for (AnnotationMirror annotMirror :  eltUtils.getAllAnnotationMirrors(e)) {
-                if (annotation.equals(mirrorAsElement(annotMirror))) {
-                    annotatedElements.add(e);
-                    break;
-                }
-            }
-            e.accept(this, annotation);
-            return annotatedElements;
+    /**
+     * Returns the elements included in this round that have annotations,
+     * with the types of their annotations, including inherited ones.
+     * The root elements are scanned once per round, rather than once for
+     * each annotation type asked for by each processor.
+     */
+    private Map<Element, Set<Element>> annotatedElements() {
+        if (annotatedElements == null) {
+            AnnotatedElementScanner scanner = new AnnotatedElementScanner();
+            for (Element element : rootElements)
+                scanner.scan(element, null);
+            annotatedElements = scanner.annotatedElements;
         }
+        return annotatedElements;
     }
 
-    // Could be written as a local class inside getElementsAnnotatedWithAny
-    private class AnnotationSetMultiScanner extends
-        ElementScanningIncludingTypeParameters<Set<Element>, Set<TypeElement>> {
-        // Insertion-order preserving set
-        private Set<Element> annotatedElements = new LinkedHashSet<>();
+    private class AnnotatedElementScanner extends
+        ElementScanningIncludingTypeParameters<Void, Void> {
+        // Insertion-order preserving map
+        private Map<Element, Set<Element>> annotatedElements = new LinkedHashMap<>();
 
-        AnnotationSetMultiScanner(Set<Element> defaultSet) {
-            super(defaultSet);
+        AnnotatedElementScanner() {
+            super(null);
         }
 
         @Override @DefinedBy(Api.LANGUAGE_MODEL)
-        public Set<Element> scan(Element e, Set<TypeElement> annotations) {
-            for (AnnotationMirror annotMirror : eltUtils.getAllAnnotationMirrors(e)) {
-                if (annotations.contains(mirrorAsElement(annotMirror))) {
-                    annotatedElements.add(e);
-                    break;
-                }
+        public Void scan(Element e, Void p) {
+            List<? extends AnnotationMirror> annotMirrors = eltUtils.getAllAnnotationMirrors(e);
+            if (!annotMirrors.isEmpty() && !annotatedElements.containsKey(e)) {
+                Set<Element> annotationTypes = new HashSet<>();
+                for (AnnotationMirror annotMirror : annotMirrors)
+                    annotationTypes.add(mirrorAsElement(annotMirror));
+                annotatedElements.put(e, annotationTypes);
             }
-            e.accept(this, annotations);
-            return annotatedElements;
+            return e.accept(this, p);
         }
     }
 
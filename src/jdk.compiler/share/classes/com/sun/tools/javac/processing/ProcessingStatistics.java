@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.javac.processing;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.Processor;
+import javax.tools.FileObject;
+
+/**
+ * Records the time and memory used by each round of annotation processing,
+ * by each call to {@link Processor#process}, and by the writes to each file
+ * created through the filer, as requested by {@code -XDprocessingStats=file}.
+ * The results are written to the given file in JSON format. The same
+ * records are used to print a line for each round, as requested by
+ * {@code -XDprocessingRoundStats}.
+ *
+ * <p>CPU time and allocated bytes are read from the thread management bean
+ * of the platform, when it is available; otherwise they are reported as -1.
+ *
+ * <p><b>This is NOT part of any supported API.
+ * If you write code that depends on this, you do so at your own risk.
+ * This code and its internal interfaces are subject to change or
+ * deletion without notice.</b>
+ */
+class ProcessingStatistics {
+
+    /** The time and memory used by a round, or by a call to a processor. */
+    static class Record {
+        final String name;
+        long wallNanos;
+        long cpuNanos;
+        long allocatedBytes;
+        final List<OutputRecord> outputs = new ArrayList<>();
+        /** The value returned by the processor, if any. */
+        Boolean result;
+
+        /** The values sampled when the record was started. */
+        private long[] start;
+
+        Record(String name) {
+            this.name = name;
+        }
+
+        void add(Record other) {
+            wallNanos += other.wallNanos;
+            cpuNanos = sum(cpuNanos, other.cpuNanos);
+            allocatedBytes = sum(allocatedBytes, other.allocatedBytes);
+            outputs.addAll(other.outputs);
+        }
+
+        private static long sum(long a, long b) {
+            return (a < 0 || b < 0) ? -1 : a + b;
+        }
+    }
+
+    /**
+     * A file created through the filer. The values are the sum over all
+     * writes to the file, including opening and closing it.
+     */
+    class OutputRecord extends Record {
+        OutputRecord(String name) {
+            super(name);
+        }
+
+        /** Returns the values to be passed to {@link #writeFinished}. */
+        long[] writeStarted() {
+            return sample();
+        }
+
+        void writeFinished(long[] start) {
+            long[] end = sample();
+            wallNanos += end[0] - start[0];
+            cpuNanos = Record.sum(cpuNanos, (end[1] < 0) ? -1 : end[1] - start[1]);
+            allocatedBytes = Record.sum(allocatedBytes, (end[2] < 0) ? -1 : end[2] - start[2]);
+        }
+    }
+
+    /** A round of annotation processing. */
+    static class RoundRecord extends Record {
+        final int number;
+        final boolean reusedPreviousRound;
+        final long prepareNanos;
+        final List<Record> calls = new ArrayList<>();
+
+        RoundRecord(int number, boolean reusedPreviousRound, long prepareNanos) {
+            super("round " + number);
+            this.number = number;
+            this.reusedPreviousRound = reusedPreviousRound;
+            this.prepareNanos = prepareNanos;
+        }
+    }
+
+    private final Path file;
+    private final List<RoundRecord> rounds = new ArrayList<>();
+    private RoundRecord currentRound;
+    private Record currentCall;
+
+    private Object threadBean;
+    private Method cpuTimeMethod;
+    private Method allocatedBytesMethod;
+
+    /**
+     * Creates the statistics.
+     * @param file the file to which the report is written, or null if
+     *             no report is written
+     */
+    ProcessingStatistics(Path file) {
+        this.file = file;
+        try {
+            Class<?> factory = Class.forName("java.lang.management.ManagementFactory");
+            Class<?> beanClass = Class.forName("java.lang.management.ThreadMXBean");
+            threadBean = factory.getMethod("getThreadMXBean").invoke(null);
+            if ((Boolean) beanClass.getMethod("isCurrentThreadCpuTimeSupported").invoke(threadBean))
+                cpuTimeMethod = beanClass.getMethod("getCurrentThreadCpuTime");
+            Class<?> extBeanClass = Class.forName("com.sun.management.ThreadMXBean");
+            if (extBeanClass.isInstance(threadBean))
+                allocatedBytesMethod = extBeanClass.getMethod("getThreadAllocatedBytes", long.class);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            // the management classes are not available: report what we can
+        }
+    }
+
+    void roundStarted(int number, boolean reusedPreviousRound, long prepareNanos) {
+        currentRound = new RoundRecord(number, reusedPreviousRound, prepareNanos);
+        rounds.add(currentRound);
+        start(currentRound);
+    }
+
+    void roundFinished() {
+        stop(currentRound);
+        currentRound = null;
+    }
+
+    void processorStarted(Processor processor) {
+        currentCall = new Record(processor.getClass().getName());
+        if (currentRound != null)
+            currentRound.calls.add(currentCall);
+        start(currentCall);
+    }
+
+    void processorFinished(boolean result) {
+        stop(currentCall);
+        currentCall.result = result;
+        currentCall = null;
+    }
+
+    /** Returns a one line summary of the last round that has finished. */
+    String lastRoundSummary() {
+        RoundRecord round = rounds.get(rounds.size() - 1);
+        return "processing round " + round.number + ": "
+                + (round.reusedPreviousRound ? "reused previous round, " : "")
+                + (round.prepareNanos / 1000000) + " ms preparing, "
+                + (round.wallNanos / 1000000) + " ms in processors";
+    }
+
+    /**
+     * Record a file created for writing through the filer.
+     * @return the record to which the writes to the file are added
+     */
+    OutputRecord fileCreated(FileObject fileObject) {
+        OutputRecord output = new OutputRecord(fileObject.getName());
+        Record r = (currentCall != null) ? currentCall : currentRound;
+        if (r != null)
+            r.outputs.add(output);
+        return output;
+    }
+
+    private void start(Record r) {
+        r.start = sample();
+    }
+
+    private void stop(Record r) {
+        long[] end = sample();
+        r.wallNanos = end[0] - r.start[0];
+        r.cpuNanos = (end[1] < 0) ? -1 : end[1] - r.start[1];
+        r.allocatedBytes = (end[2] < 0) ? -1 : end[2] - r.start[2];
+        r.start = null;
+    }
+
+    /** Returns the current wall time, CPU time and allocated bytes for this thread. */
+    private long[] sample() {
+        long[] values = { System.nanoTime(), -1, -1 };
+        try {
+            if (cpuTimeMethod != null)
+                values[1] = (Long) cpuTimeMethod.invoke(threadBean);
+            if (allocatedBytesMethod != null)
+                values[2] = (Long) allocatedBytesMethod.invoke(threadBean, Thread.currentThread().getId());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            cpuTimeMethod = null;
+            allocatedBytesMethod = null;
+        }
+        return values;
+    }
+
+    /**
+     * Write the report, with the totals for each processor over all rounds,
+     * if a file was given.
+     */
+    void write() throws IOException {
+        if (file == null)
+            return;
+
+        Map<String, Record> totals = new LinkedHashMap<>();
+        Map<String, Integer> callCounts = new LinkedHashMap<>();
+        for (RoundRecord round : rounds) {
+            for (Record call : round.calls) {
+                totals.computeIfAbsent(call.name, Record::new).add(call);
+                callCounts.merge(call.name, 1, Integer::sum);
+            }
+        }
+
+        try (Writer out = Files.newBufferedWriter(file)) {
+            out.write("{\n  \"rounds\": [");
+            String sep = "\n";
+            for (RoundRecord round : rounds) {
+                out.write(sep + "    {\n");
+                out.write("      \"round\": " + round.number + ",\n");
+                out.write("      \"reusedPreviousRound\": " + round.reusedPreviousRound + ",\n");
+                out.write("      \"prepareNanos\": " + round.prepareNanos + ",\n");
+                writeValues(out, round, "      ");
+                out.write(",\n      \"calls\": [");
+                String callSep = "\n";
+                for (Record call : round.calls) {
+                    out.write(callSep + "        {\n");
+                    out.write("          \"processor\": " + quote(call.name) + ",\n");
+                    if (call.result != null)
+                        out.write("          \"result\": " + call.result + ",\n");
+                    writeValues(out, call, "          ");
+                    out.write("\n        }");
+                    callSep = ",\n";
+                }
+                out.write(round.calls.isEmpty() ? "]" : "\n      ]");
+                out.write("\n    }");
+                sep = ",\n";
+            }
+            out.write(rounds.isEmpty() ? "]," : "\n  ],");
+            out.write("\n  \"processors\": [");
+            sep = "\n";
+            for (Record total : totals.values()) {
+                out.write(sep + "    {\n");
+                out.write("      \"processor\": " + quote(total.name) + ",\n");
+                out.write("      \"calls\": " + callCounts.get(total.name) + ",\n");
+                writeValues(out, total, "      ");
+                out.write("\n    }");
+                sep = ",\n";
+            }
+            out.write(totals.isEmpty() ? "]" : "\n  ]");
+            out.write("\n}\n");
+        }
+    }
+
+    private void writeValues(Writer out, Record r, String indent) throws IOException {
+        out.write(indent + "\"wallNanos\": " + r.wallNanos + ",\n");
+        out.write(indent + "\"cpuNanos\": " + r.cpuNanos + ",\n");
+        out.write(indent + "\"allocatedBytes\": " + r.allocatedBytes + ",\n");
+        out.write(indent + "\"outputs\": [");
+        String sep = "\n";
+        for (OutputRecord output : r.outputs) {
+            out.write(sep + indent + "  { \"file\": " + quote(output.name)
+                    + ", \"wallNanos\": " + output.wallNanos
+                    + ", \"cpuNanos\": " + output.cpuNanos
+                    + ", \"allocatedBytes\": " + output.allocatedBytes + " }");
+            sep = ",\n";
+        }
+        out.write(r.outputs.isEmpty() ? "]" : "\n" + indent + "]");
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20)
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -25,8 +25,8 @@
 
 package com.sun.tools.javac.util;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.tools.JavaFileObject;
 
 import com.sun.tools.javac.code.Lint.LintCategory;
@@ -56,13 +56,14 @@ public abstract class AbstractLog {
      */
     protected DiagnosticSource source;
 
-    /** A cache of lightweight DiagnosticSource objects.
+    /** A cache of lightweight DiagnosticSource objects. Diagnostics for
+     *  a given file may be created on more than one thread.
      */
     protected Map<JavaFileObject, DiagnosticSource> sourceMap;
 
     AbstractLog(JCDiagnostic.Factory diags) {
         this.diags = diags;
-        sourceMap = new HashMap<>();
+        sourceMap = new ConcurrentHashMap<>();
     }
 
     /** Re-assign source, returning previous setting.
@@ -76,12 +77,14 @@ public abstract class AbstractLog {
     protected DiagnosticSource getSource(JavaFileObject file) {
         if (file == null)
             return DiagnosticSource.NO_SOURCE;
-        DiagnosticSource s = sourceMap.get(file);
-        if (s == null) {
-            s = new DiagnosticSource(file, this);
-            sourceMap.put(file, s);
-        }
-        return s;
+        return sourceMap.computeIfAbsent(file, f -> new DiagnosticSource(f, this));
+    }
+
+    /** Discard the cached source of a file, whose content has changed.
+     */
+    public void flushSource(JavaFileObject file) {
+        if (file != null)
+            sourceMap.remove(file);
     }
 
     /** Return the underlying diagnostic source
@@ -25,8 +25,6 @@
 
 package com.sun.tools.javac.util;
 
-import java.io.*;
-
 /** A byte buffer is a flexible array which grows when elements are
  *  appended. There are also methods to append names to byte buffers
  *  and to convert byte buffers to names.
@@ -105,40 +103,20 @@ public class ByteBuffer {
     /** Append a long as an eight byte number.
      */
     public void appendLong(long x) {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream(8);
-        DataOutputStream bufout = new DataOutputStream(buffer);
-        try {
-            bufout.writeLong(x);
-            appendBytes(buffer.toByteArray(), 0, 8);
-        } catch (IOException e) {
-            throw new AssertionError("write");
-        }
+        appendInt((int)(x >>> 32));
+        appendInt((int)x);
     }
 
     /** Append a float as a four byte number.
      */
     public void appendFloat(float x) {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4);
-        DataOutputStream bufout = new DataOutputStream(buffer);
-        try {
-            bufout.writeFloat(x);
-            appendBytes(buffer.toByteArray(), 0, 4);
-        } catch (IOException e) {
-            throw new AssertionError("write");
-        }
+        appendInt(Float.floatToIntBits(x));
     }
 
     /** Append a double as a eight byte number.
      */
     public void appendDouble(double x) {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream(8);
-        DataOutputStream bufout = new DataOutputStream(buffer);
-        try {
-            bufout.writeDouble(x);
-            appendBytes(buffer.toByteArray(), 0, 8);
-        } catch (IOException e) {
-            throw new AssertionError("write");
-        }
+        appendLong(Double.doubleToLongBits(x));
     }
 
     /** Append a name.
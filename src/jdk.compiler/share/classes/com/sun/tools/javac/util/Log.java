@@ -26,13 +26,19 @@
 package com.sun.tools.javac.util;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.tools.DiagnosticListener;
 import javax.tools.JavaFileObject;
@@ -171,6 +177,60 @@ public class Log extends AbstractLog {
         }
     }
 
+    /**
+     * A DiagnosticHandler that buffers all diagnostics by source file, and
+     * that can be used by several threads at once, provided that each thread
+     * creates its diagnostics with an explicit source rather than through
+     * {@link #useSource}. The buffered diagnostics are reported to the
+     * previous handler by a single thread, in a deterministic order: file by
+     * file, in the order given, then the diagnostics with no source file.
+     * The diagnostics for a file are reported in the order in which they were
+     * buffered, which is deterministic when each file is handled by one
+     * thread at a time. Duplicate errors are only removed when the
+     * diagnostics are reported to the previous handler.
+     */
+    public static class PerFileDiagnosticHandler extends DiagnosticHandler {
+        private Map<JavaFileObject, Queue<JCDiagnostic>> deferred = new ConcurrentHashMap<>();
+        private Queue<JCDiagnostic> deferredNoSource = new ConcurrentLinkedQueue<>();
+
+        public PerFileDiagnosticHandler(Log log) {
+            install(log);
+        }
+
+        @Override
+        public void report(JCDiagnostic diag) {
+            JavaFileObject file = diag.getSource();
+            Queue<JCDiagnostic> queue = (file == null)
+                    ? deferredNoSource
+                    : deferred.computeIfAbsent(file, f -> new ConcurrentLinkedQueue<>());
+            queue.add(diag);
+        }
+
+        /**
+         * Report the buffered diagnostics, for the given files in order.
+         * Diagnostics for any other files follow, ordered by file name.
+         * This must not be called while other threads may still report
+         * diagnostics to this handler.
+         */
+        public void reportDeferredDiagnostics(Iterable<? extends JavaFileObject> files) {
+            Set<JavaFileObject> order = new LinkedHashSet<>();
+            for (JavaFileObject file : files)
+                order.add(file);
+            List<JavaFileObject> others = new ArrayList<>(deferred.keySet());
+            others.removeAll(order);
+            others.sort(Comparator.comparing(JavaFileObject::getName));
+            order.addAll(others);
+            for (JavaFileObject file : order) {
+                Queue<JCDiagnostic> queue = deferred.get(file);
+                if (queue != null)
+                    queue.forEach(prev::report);
+            }
+            deferredNoSource.forEach(prev::report);
+            deferred = null; // prevent accidental ongoing use
+            deferredNoSource = null;
+        }
+    }
+
     public enum WriterKind { NOTICE, WARNING, ERROR, STDOUT, STDERR }
 
     private final Map<WriterKind, PrintWriter> writers;
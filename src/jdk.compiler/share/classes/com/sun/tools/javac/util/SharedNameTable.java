@@ -74,9 +74,14 @@ public class SharedNameTable extends Name.Table {
      */
     private int nc = 0;
 
+    /** The number of names in the table. The hash table is doubled in size
+     *  when this exceeds the number of buckets.
+     */
+    private int size = 0;
+
     /** Allocator
      *  @param names The main name table
-     *  @param hashSize the (constant) size to be used for the hash table
+     *  @param hashSize the initial size to be used for the hash table
      *                  needs to be a power of two.
      *  @param nameSize the initial size of the name table.
      */
@@ -97,10 +102,12 @@ public class SharedNameTable extends Name.Table {
         int nc = this.nc;
         byte[] bytes = this.bytes = ArrayUtils.ensureCapacity(this.bytes, nc + len * 3);
         int nbytes = Convert.chars2utf(cs, start, bytes, nc, len) - nc;
-        int h = hashValue(bytes, nc, nbytes) & hashMask;
+        int hash = hashValue(bytes, nc, nbytes);
+        int h = hash & hashMask;
         NameImpl n = hashes[h];
         while (n != null &&
-                (n.getByteLength() != nbytes ||
+                (n.hash != hash ||
+                n.getByteLength() != nbytes ||
                 !equals(bytes, n.index, bytes, nc, nbytes))) {
             n = n.next;
         }
@@ -108,23 +115,28 @@ public class SharedNameTable extends Name.Table {
             n = new NameImpl(this);
             n.index = nc;
             n.length = nbytes;
+            n.hash = hash;
             n.next = hashes[h];
             hashes[h] = n;
             this.nc = nc + nbytes;
             if (nbytes == 0) {
                 this.nc++;
             }
+            if (++size > hashes.length)
+                rehash();
         }
         return n;
     }
 
     @Override
     public Name fromUtf(byte[] cs, int start, int len) {
-        int h = hashValue(cs, start, len) & hashMask;
+        int hash = hashValue(cs, start, len);
+        int h = hash & hashMask;
         NameImpl n = hashes[h];
         byte[] names = this.bytes;
         while (n != null &&
-                (n.getByteLength() != len || !equals(names, n.index, cs, start, len))) {
+                (n.hash != hash ||
+                n.getByteLength() != len || !equals(names, n.index, cs, start, len))) {
             n = n.next;
         }
         if (n == null) {
@@ -134,16 +146,40 @@ public class SharedNameTable extends Name.Table {
             n = new NameImpl(this);
             n.index = nc;
             n.length = len;
+            n.hash = hash;
             n.next = hashes[h];
             hashes[h] = n;
             this.nc = nc + len;
             if (len == 0) {
                 this.nc++;
             }
+            if (++size > hashes.length)
+                rehash();
         }
         return n;
     }
 
+    /** Double the size of the hash table, so that bucket chains stay short
+     *  however many names are entered. Names keep their index, and so
+     *  their hash code, as only the buckets they are chained in change.
+     */
+    private void rehash() {
+        NameImpl[] oldHashes = hashes;
+        NameImpl[] newHashes = new NameImpl[oldHashes.length * 2];
+        int newMask = newHashes.length - 1;
+        for (NameImpl n : oldHashes) {
+            while (n != null) {
+                NameImpl next = n.next;
+                int h = n.hash & newMask;
+                n.next = newHashes[h];
+                newHashes[h] = n;
+                n = next;
+            }
+        }
+        hashes = newHashes;
+        hashMask = newMask;
+    }
+
     @Override
     public void dispose() {
         dispose(this);
@@ -163,6 +199,11 @@ public class SharedNameTable extends Name.Table {
          */
         int length;
 
+        /** The value of hashValue for the bytes of this name, used to
+         *  rehash the table and to skip most byte comparisons on lookup.
+         */
+        int hash;
+
         NameImpl(SharedNameTable table) {
             super(table);
         }
@@ -0,0 +1,464 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.sjavac;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.sun.tools.sjavac.pubapi.PubApi;
+
+/**
+ * Reads and writes the binary form of the javac_state file.
+ *
+ * The file starts with a fixed size header:
+ * <pre>
+ *     int  MAGIC
+ *     int  VERSION
+ *     int  arguments         (string index)
+ *     int  package count
+ *     long string table offset
+ *     long package index offset
+ * </pre>
+ * followed by one record for each package, the string table and the
+ * package index, which is followed by the digests of the jars on the
+ * class path. All strings, such as file and class names, are stored
+ * once in the string table, as an array of offsets followed by the UTF-8
+ * bytes of the strings, and are referred to by their index. The package
+ * index gives the module name, the package name and the offset of the
+ * record of each package. A package record holds:
+ * <pre>
+ *     long compile time
+ *     int  source count,     { byte flags, int name, long last modified, int digest }
+ *     int  dependency count, { byte on classpath, int from, int to }
+ *     int  artifact count,   { int path, long last modified }
+ *     int  pubapi count,     { int pubapi line }
+ * </pre>
+ * and the class path digests are stored as:
+ * <pre>
+ *     int  jar count,        { int path, int digest, long size, long last modified }
+ * </pre>
+ * A missing string, such as an unknown digest, has the index -1.
+ *
+ * Since every value is found through an offset, the file can be read from
+ * any byte buffer, including a mapped one, and strings are only decoded when
+ * they are used. The public apis, which make up most of the file, are not
+ * read until they are asked for, and those that were never read are copied
+ * to the next file as they are.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public class BinaryJavacState {
+
+    public static final int MAGIC = 0x534A5653; // "SJVS"
+    public static final int VERSION = 3;
+
+    private static final int HEADER_SIZE = 32;
+
+    private static final int GENERATED = 1;
+    private static final int LINKED_ONLY = 2;
+
+    /**
+     * Returns true if the file starts with the magic number of the binary format.
+     */
+    public static boolean isBinary(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write the modules, and all their packages, and the class path digests
+     * of the build state to the given file.
+     */
+    public static void write(File file, String args, BuildState state) throws IOException {
+        Map<String,Module> modules = state.modules();
+        Map<ByteBuffer,Integer> strings = new LinkedHashMap<>();
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(records);
+
+        List<Integer> moduleNames = new ArrayList<>();
+        List<Integer> packageNames = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        int argsIndex = stringIndex(strings, args);
+        for (Module m : modules.values()) {
+            List<String> sorted = new ArrayList<>(m.packages().keySet());
+            Collections.sort(sorted);
+            for (String name : sorted) {
+                moduleNames.add(stringIndex(strings, m.name()));
+                packageNames.add(stringIndex(strings, name));
+                offsets.add(HEADER_SIZE + out.size());
+                writePackage(out, strings, m.packages().get(name));
+            }
+        }
+        for (int i = 0; i < offsets.size(); i++) {
+            out.writeInt(moduleNames.get(i));
+            out.writeInt(packageNames.get(i));
+            out.writeLong(offsets.get(i));
+        }
+        out.writeInt(state.classpathDigests().size());
+        for (Map.Entry<String,ContentDigest.Stamp> e : state.classpathDigests().entrySet()) {
+            out.writeInt(stringIndex(strings, e.getKey()));
+            out.writeInt(stringIndex(strings, e.getValue().digest));
+            out.writeLong(e.getValue().size);
+            out.writeLong(e.getValue().lastModified);
+        }
+        out.flush();
+        int indexSize = 16 * offsets.size() + 4 + 24 * state.classpathDigests().size();
+
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        writeStringTable(new DataOutputStream(table), strings.keySet());
+
+        // The package index is written last, after the string table.
+        byte[] body = records.toByteArray();
+        int recordsSize = body.length - indexSize;
+        long tableOffset = HEADER_SIZE + recordsSize;
+        long indexOffset = tableOffset + table.size();
+        try (OutputStream fout = new FileOutputStream(file)) {
+            DataOutputStream header = new DataOutputStream(fout);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(argsIndex);
+            header.writeInt(offsets.size());
+            header.writeLong(tableOffset);
+            header.writeLong(indexOffset);
+            header.flush();
+            fout.write(body, 0, recordsSize);
+            table.writeTo(fout);
+            fout.write(body, recordsSize, indexSize);
+        }
+    }
+
+    private static void writePackage(DataOutputStream out, Map<ByteBuffer,Integer> strings, Package p)
+            throws IOException {
+        out.writeLong(p.compileTime());
+
+        List<String> sources = new ArrayList<>(p.sources().keySet());
+        Collections.sort(sources);
+        out.writeInt(sources.size());
+        for (String key : sources) {
+            Source s = p.sources().get(key);
+            out.writeByte((s.isGenerated() ? GENERATED : 0) | (s.isLinkedOnly() ? LINKED_ONLY : 0));
+            out.writeInt(stringIndex(strings, s.name()));
+            out.writeLong(s.file().lastModified());
+            out.writeInt(s.digest() != null ? stringIndex(strings, s.digest()) : -1);
+        }
+
+        int count = 0;
+        for (Set<String> tos : p.typeDependencies().values())
+            count += tos.size();
+        for (Set<String> tos : p.typeClasspathDependencies().values())
+            count += tos.size();
+        out.writeInt(count);
+        writeDependencies(out, strings, p.typeDependencies(), false);
+        writeDependencies(out, strings, p.typeClasspathDependencies(), true);
+
+        List<File> artifacts = new ArrayList<>(p.artifacts().values());
+        Collections.sort(artifacts);
+        out.writeInt(artifacts.size());
+        for (File f : artifacts) {
+            out.writeInt(stringIndex(strings, f.getPath()));
+            out.writeLong(f.lastModified());
+        }
+
+        // A public api that has not been read since it was loaded is copied
+        // as it is, without decoding it.
+        Supplier<PubApi> loader = p.getPubApiLoader();
+        if (loader instanceof Reader.StoredPubApi) {
+            ((Reader.StoredPubApi) loader).writeTo(out, strings);
+            return;
+        }
+        List<String> pubApi = p.getPubApi().asListOfStrings();
+        out.writeInt(pubApi.size());
+        for (String l : pubApi) {
+            out.writeInt(stringIndex(strings, l));
+        }
+    }
+
+    private static void writeDependencies(DataOutputStream out, Map<ByteBuffer,Integer> strings,
+                                          Map<String,Set<String>> deps, boolean cp)
+            throws IOException {
+        for (Map.Entry<String,Set<String>> e : deps.entrySet()) {
+            int from = stringIndex(strings, e.getKey());
+            for (String to : e.getValue()) {
+                out.writeByte(cp ? 1 : 0);
+                out.writeInt(from);
+                out.writeInt(stringIndex(strings, to));
+            }
+        }
+    }
+
+    private static void writeStringTable(DataOutputStream out, Set<ByteBuffer> strings) throws IOException {
+        out.writeInt(strings.size());
+        int offset = 0;
+        for (ByteBuffer b : strings) {
+            out.writeInt(offset);
+            offset += b.remaining();
+        }
+        out.writeInt(offset);
+        byte[] bytes = new byte[0];
+        for (ByteBuffer b : strings) {
+            if (bytes.length < b.remaining())
+                bytes = new byte[b.remaining()];
+            int length = b.remaining();
+            b.duplicate().get(bytes, 0, length);
+            out.write(bytes, 0, length);
+        }
+        out.flush();
+    }
+
+    private static int stringIndex(Map<ByteBuffer,Integer> strings, String s) {
+        return rawStringIndex(strings, ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** Returns the index of a string given by its UTF-8 bytes. */
+    private static int rawStringIndex(Map<ByteBuffer,Integer> strings, ByteBuffer utf8) {
+        Integer i = strings.get(utf8);
+        if (i == null) {
+            i = strings.size();
+            strings.put(utf8, i);
+        }
+        return i;
+    }
+
+    /**
+     * Reads a binary javac_state file from a byte buffer. All reads use
+     * absolute positions, so the buffer is never modified.
+     */
+    public static class Reader {
+        private final ByteBuffer buf;
+        private final int version;
+        private final int stringCount;
+        private final int stringOffsets;
+        private final int stringData;
+        private final String[] strings;
+
+        /**
+         * Read the file into memory. The file is not mapped, since it is
+         * written again, in place, at the end of the build, which a live
+         * mapping would prevent on some platforms.
+         */
+        public Reader(File file) throws IOException {
+            this(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+        }
+
+        public Reader(ByteBuffer buf) throws IOException {
+            this.buf = buf;
+            if (buf.limit() < HEADER_SIZE || buf.getInt(0) != MAGIC)
+                throw new IOException("Not a binary javac_state file");
+            version = buf.getInt(4);
+            if (version != VERSION) {
+                stringCount = stringOffsets = stringData = 0;
+                strings = new String[0];
+                return;
+            }
+            int tableOffset = checkOffset(buf.getLong(16), 4);
+            stringCount = buf.getInt(tableOffset);
+            stringOffsets = tableOffset + 4;
+            stringData = checkOffset(stringOffsets + 4L * (stringCount + 1L), 0);
+            checkOffset(stringData + (long) buf.getInt(stringOffsets + 4 * stringCount), 0);
+            strings = new String[stringCount];
+        }
+
+        /** Returns the version of the format the file was written with. */
+        public int version() {
+            return version;
+        }
+
+        /** Returns the sjavac arguments the state was recorded with. */
+        public String args() throws IOException {
+            return string(buf.getInt(8));
+        }
+
+        /**
+         * Enter all modules, packages, sources, dependencies and artifacts of
+         * the file into the build state. The public api of each package is
+         * left to be read when it is first used.
+         */
+        public void loadInto(BuildState state) throws IOException {
+            int packageCount = buf.getInt(12);
+            int index = checkOffset(buf.getLong(24), 16L * packageCount + 4);
+            for (int i = 0; i < packageCount; i++, index += 16) {
+                String moduleName = string(buf.getInt(index));
+                Module m = state.modules().get(moduleName);
+                if (m == null) {
+                    m = state.enterModule(new Module(moduleName, ""));
+                }
+                Package p = state.enterPackage(m, new Package(m, string(buf.getInt(index + 4))));
+                loadPackage(state, p, checkOffset(buf.getLong(index + 8), 0));
+            }
+
+            int count = checkCount(buf.getInt(index));
+            index = checkOffset(index + 4L, 24L * count);
+            for (int i = 0; i < count; i++, index += 24) {
+                state.classpathDigests().put(string(buf.getInt(index)),
+                                             new ContentDigest.Stamp(buf.getLong(index + 8),
+                                                                     buf.getLong(index + 16),
+                                                                     string(buf.getInt(index + 4))));
+            }
+        }
+
+        private void loadPackage(BuildState state, Package p, int pos) throws IOException {
+            p.setCompileTime(buf.getLong(checkOffset(pos, 8)));
+            pos += 8;
+
+            int count = checkCount(buf.getInt(checkOffset(pos, 4)));
+            pos = checkOffset(pos + 4L, 17L * count);
+            for (int i = 0; i < count; i++, pos += 17) {
+                int flags = buf.get(pos);
+                Source s = Source.load(p, string(buf.getInt(pos + 1)), buf.getLong(pos + 5),
+                                       (flags & GENERATED) != 0, (flags & LINKED_ONLY) != 0);
+                int digest = buf.getInt(pos + 13);
+                if (digest != -1)
+                    s.setDigest(string(digest));
+                state.enterSource(p, s);
+            }
+
+            count = checkCount(buf.getInt(checkOffset(pos, 4)));
+            pos = checkOffset(pos + 4L, 9L * count);
+            for (int i = 0; i < count; i++, pos += 9) {
+                p.addDependency(string(buf.getInt(pos + 1)), string(buf.getInt(pos + 5)), buf.get(pos) != 0);
+            }
+
+            count = checkCount(buf.getInt(checkOffset(pos, 4)));
+            pos = checkOffset(pos + 4L, 12L * count);
+            for (int i = 0; i < count; i++, pos += 12) {
+                p.loadArtifact(string(buf.getInt(pos)), buf.getLong(pos + 4));
+            }
+
+            int pubApiCount = checkCount(buf.getInt(checkOffset(pos, 4)));
+            int pubApiPos = checkOffset(pos + 4L, 4L * pubApiCount);
+            // The public api is decoded later, if at all, so check it now.
+            for (int i = 0; i < pubApiCount; i++) {
+                checkString(buf.getInt(pubApiPos + 4 * i));
+            }
+            if (pubApiCount > 0) {
+                p.setPubApiLoader(new StoredPubApi(pubApiPos, pubApiCount));
+            }
+        }
+
+        /** The public api of a package, as stored in the file. */
+        class StoredPubApi implements Supplier<PubApi> {
+            private final int pos;
+            private final int count;
+
+            StoredPubApi(int pos, int count) {
+                this.pos = pos;
+                this.count = count;
+            }
+
+            @Override
+            public PubApi get() {
+                PubApi pubApi = new PubApi();
+                for (int i = 0; i < count; i++) {
+                    pubApi.appendItem(stringUnchecked(buf.getInt(pos + 4 * i)));
+                }
+                return pubApi;
+            }
+
+            /** Write the lines of the public api as they are stored. */
+            void writeTo(DataOutputStream out, Map<ByteBuffer,Integer> strings) throws IOException {
+                out.writeInt(count);
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(rawStringIndex(strings, rawString(buf.getInt(pos + 4 * i))));
+                }
+            }
+        }
+
+        private String string(int i) throws IOException {
+            return stringUnchecked(checkString(i));
+        }
+
+        /** Check that i is the index of a string in the file, and return it. */
+        private int checkString(int i) throws IOException {
+            if (i < 0 || i >= stringCount)
+                throw new IOException("Bad string index " + i);
+            int start = buf.getInt(stringOffsets + 4 * i);
+            int end = buf.getInt(stringOffsets + 4 * i + 4);
+            if (start < 0 || start > end)
+                throw new IOException("Bad string " + i);
+            checkOffset(stringData + (long) start, end - start);
+            return i;
+        }
+
+        /** Returns the UTF-8 bytes of a string, without decoding them. */
+        private ByteBuffer rawString(int i) {
+            int start = buf.getInt(stringOffsets + 4 * i);
+            int end = buf.getInt(stringOffsets + 4 * i + 4);
+            ByteBuffer data = buf.duplicate();
+            data.limit(stringData + end);
+            data.position(stringData + start);
+            return data.slice();
+        }
+
+        private String stringUnchecked(int i) {
+            String s = strings[i];
+            if (s == null) {
+                int start = buf.getInt(stringOffsets + 4 * i);
+                int end = buf.getInt(stringOffsets + 4 * i + 4);
+                byte[] b = new byte[end - start];
+                ByteBuffer data = buf.duplicate();
+                data.position(stringData + start);
+                data.get(b);
+                s = strings[i] = new String(b, StandardCharsets.UTF_8);
+            }
+            return s;
+        }
+
+        private static int checkCount(int count) throws IOException {
+            if (count < 0)
+                throw new IOException("Bad count " + count);
+            return count;
+        }
+
+        /** Check that size bytes can be read at offset, and return the offset. */
+        private int checkOffset(long offset, long size) throws IOException {
+            if (offset < 0 || size < 0 || offset + size > buf.limit())
+                throw new IOException("Bad offset " + offset);
+            return (int) offset;
+        }
+    }
+}
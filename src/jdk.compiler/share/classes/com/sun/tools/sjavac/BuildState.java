@@ -51,12 +51,15 @@ public class BuildState {
     private Map<String,File> artifacts = new HashMap<>();
     // Map from package to a set of packages that depend on said package.
     private Map<String,Set<String>> dependents = new HashMap<>();
+    // Map from a jar file on the class path to the digest of its content.
+    private Map<String,ContentDigest.Stamp> classpathDigests = new HashMap<>();
 
     public  Map<String,Module> modules() { return modules; }
     public  Map<String,Package> packages() { return packages; }
     public  Map<String,Source> sources() { return sources; }
     public  Map<String,File> artifacts() { return artifacts; }
     public  Map<String,Set<String>> dependents() { return dependents; }
+    public  Map<String,ContentDigest.Stamp> classpathDigests() { return classpathDigests; }
 
     /**
      * Lookup a module from a name. Create the module if it does
@@ -246,16 +249,46 @@ public class BuildState {
      * Load a module from the javac state file.
      */
     public Module loadModule(String l) {
-        Module m = Module.load(l);
+        return enterModule(Module.load(l));
+    }
+
+    /**
+     * Enter a module read from the javac state file.
+     */
+    public Module enterModule(Module m) {
         modules.put(m.name(), m);
         return m;
     }
 
+    /**
+     * Load the digest of a class path entry from the javac state file.
+     */
+    public void loadClasspathDigest(String l) {
+        // H digest size lastModified path
+        String[] parts = l.split(" ", 5);
+        if (parts.length == 5) {
+            try {
+                classpathDigests.put(parts[4],
+                                     new ContentDigest.Stamp(Long.parseLong(parts[2]),
+                                                             Long.parseLong(parts[3]),
+                                                             parts[1]));
+            } catch (NumberFormatException e) {
+                // Ignore the entry, the jar is digested again.
+            }
+        }
+    }
+
     /**
      * Load a package from the javac state file.
      */
     public Package loadPackage(Module lastModule, String l) {
-        Package p = Package.load(lastModule, l);
+        return enterPackage(lastModule, Package.load(lastModule, l));
+    }
+
+    /**
+     * Enter a package read from the javac state file.
+     */
+    public Package enterPackage(Module lastModule, Package p) {
         lastModule.addPackage(p);
         packages.put(p.name(), p);
         return p;
@@ -265,7 +298,13 @@ public class BuildState {
      * Load a source from the javac state file.
      */
     public Source loadSource(Package lastPackage, String l, boolean is_generated) {
-        Source s = Source.load(lastPackage, l, is_generated);
+        return enterSource(lastPackage, Source.load(lastPackage, l, is_generated));
+    }
+
+    /**
+     * Enter a source read from the javac state file.
+     */
+    public Source enterSource(Package lastPackage, Source s) {
         lastPackage.addSource(s);
         sources.put(s.name(), s);
         return s;
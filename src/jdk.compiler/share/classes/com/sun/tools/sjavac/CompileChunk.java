@@ -26,7 +26,9 @@
 package com.sun.tools.sjavac;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -41,7 +43,9 @@ import java.util.Set;
 public class CompileChunk implements Comparable<CompileChunk> {
     public int numPackages;
     public int numDependents;
+    public long cost;
     public Set<URI> srcs = new HashSet<>();
+    public List<String> packages = new ArrayList<>();
     public StringBuilder pkgNames = new StringBuilder();
     public String pkgFromTos = "";
 
@@ -40,6 +40,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.ToLongFunction;
 
 import com.sun.tools.javac.main.Main.Result;
 import com.sun.tools.sjavac.comp.CompilationService;
@@ -69,6 +70,12 @@ public class CompileJavaPackages implements Transformer {
 
     Options args;
 
+    // The time in milliseconds that each package took to compile in the previous build.
+    Map<String,Long> previousCompileTimes = Collections.emptyMap();
+
+    // The time in milliseconds that each package took to compile in the last transform.
+    final Map<String,Long> compileTimes = Collections.synchronizedMap(new HashMap<>());
+
     public void setExtra(String e) {
     }
 
@@ -76,6 +83,14 @@ public class CompileJavaPackages implements Transformer {
         args = a;
     }
 
+    public void setPreviousCompileTimes(Map<String,Long> times) {
+        previousCompileTimes = times;
+    }
+
+    public Map<String,Long> compileTimes() {
+        return compileTimes;
+    }
+
     public boolean transform(final CompilationService sjavac,
                              Map<String,Set<URI>> pkgSrcs,
                              final Set<URI>             visibleSources,
@@ -91,6 +106,7 @@ public class CompileJavaPackages implements Transformer {
                              int numCores) {
 
         Log.debug("Performing CompileJavaPackages transform...");
+        compileTimes.clear();
 
         boolean rc = true;
         boolean concurrentCompiles = true;
@@ -189,14 +205,27 @@ public class CompileJavaPackages implements Transformer {
 
         Log.debug("Compiling sources in "+numCompiles+" chunk(s)");
 
-        // Create the chunks to be compiled.
-        final CompileChunk[] compileChunks = createCompileChunks(pkgSrcs, oldPackageDependents,
-                numCompiles, sourcesPerCompile);
+        // Create the chunks to be compiled. Serial chunks are limited by the number
+        // of sources to stay within the heap. Concurrent chunks should take about
+        // the same time to compile, so that no chunk is left running on its own:
+        // they are balanced on the compile times of the previous build, if known.
+        final CompileChunk[] compileChunks;
+        if (concurrentCompiles) {
+            Map<String,Long> costs = estimateCompileTimes(pkgSrcs);
+            long totalCost = 0;
+            for (long c : costs.values())
+                totalCost += c;
+            compileChunks = createCompileChunks(pkgSrcs, oldPackageDependents,
+                    numCompiles, costs::get, totalCost / numCompiles);
+        } else {
+            compileChunks = createCompileChunks(pkgSrcs, oldPackageDependents,
+                    numCompiles, p -> pkgSrcs.get(p).size(), sourcesPerCompile);
+        }
 
         if (Log.isDebugging()) {
             int cn = 1;
             for (CompileChunk cc : compileChunks) {
-                Log.debug("Chunk "+cn+" for "+id+" ---------------");
+                Log.debug("Chunk "+cn+" for "+id+" (cost "+cc.cost+") ---------------");
                 cn++;
                 for (URI u : cc.srcs) {
                     Log.debug(""+u);
@@ -219,12 +248,15 @@ public class CompileJavaPackages implements Transformer {
             Log log = Log.get();
             compilationCalls.add(() -> {
                 Log.setLogForCurrentThread(log);
+                long chunkStart = System.currentTimeMillis();
                 CompilationSubResult result = sjavac.compile("n/a",
                                                              chunkId,
                                                              args.prepJavacArgs(),
                                                              Collections.emptyList(),
                                                              cc.srcs,
                                                              visibleSources);
+                if (result.result == Result.OK)
+                    recordCompileTimes(cc, pkgSrcs, System.currentTimeMillis() - chunkStart);
                 synchronized (lock) {
                     Util.getLines(result.stdout).forEach(Log::info);
                     Util.getLines(result.stderr).forEach(Log::error);
@@ -293,6 +325,48 @@ public class CompileJavaPackages implements Transformer {
         return rc;
     }
 
+    /**
+     * Estimate how long each package will take to compile. Packages compiled
+     * in the previous build are expected to take as long as they did then,
+     * the others to take the average time per source of those packages.
+     * Without any previous compile times, the estimate is the number of sources.
+     */
+    Map<String,Long> estimateCompileTimes(Map<String,Set<URI>> pkgSrcs) {
+        long knownTime = 0;
+        long knownSources = 0;
+        for (String pkg : pkgSrcs.keySet()) {
+            Long t = previousCompileTimes.get(pkg);
+            if (t != null) {
+                knownTime += t;
+                knownSources += pkgSrcs.get(pkg).size();
+            }
+        }
+        Map<String,Long> costs = new HashMap<>();
+        for (String pkg : pkgSrcs.keySet()) {
+            int size = pkgSrcs.get(pkg).size();
+            Long t = previousCompileTimes.get(pkg);
+            if (knownTime == 0) {
+                costs.put(pkg, (long) size);
+            } else if (t != null) {
+                costs.put(pkg, t);
+            } else {
+                costs.put(pkg, Math.max(1, size * knownTime / knownSources));
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Share out the time taken to compile a chunk between its packages,
+     * in proportion to their number of sources.
+     */
+    void recordCompileTimes(CompileChunk cc, Map<String,Set<URI>> pkgSrcs, long millis) {
+        for (String pkg : cc.packages) {
+            long share = millis * pkgSrcs.get(pkg).size() / cc.srcs.size();
+            compileTimes.put(pkg, Math.max(1, share));
+        }
+    }
+
     /**
      * Split up the sources into compile chunks. If old package dependents information
      * is available, sort the order of the chunks into the most dependent first!
@@ -304,13 +378,15 @@ public class CompileJavaPackages implements Transformer {
      * @param pkgSrcs The sources to compile.
      * @param oldPackageDependents Old package dependents, if non-empty, used to sort the chunks.
      * @param numCompiles The number of chunks.
-     * @param sourcesPerCompile The number of sources per chunk.
+     * @param costOf The cost of compiling a package, in sources or in time.
+     * @param costPerCompile The cost of compiling each chunk.
      * @return
      */
     CompileChunk[] createCompileChunks(Map<String,Set<URI>> pkgSrcs,
                                        Map<String,Set<String>> oldPackageDependents,
                                        int numCompiles,
-                                       int sourcesPerCompile) {
+                                       ToLongFunction<String> costOf,
+                                       long costPerCompile) {
 
         CompileChunk[] compileChunks = new CompileChunk[numCompiles];
         for (int i=0; i<compileChunks.length; ++i) {
@@ -326,13 +402,16 @@ public class CompileJavaPackages implements Transformer {
         for (String pkgName : packageNames) {
             CompileChunk cc = compileChunks[ci];
             Set<URI> s = pkgSrcs.get(pkgName);
-            if (cc.srcs.size()+s.size() > sourcesPerCompile && ci < numCompiles-1) {
+            long cost = costOf.applyAsLong(pkgName);
+            if (cc.cost+cost > costPerCompile && ci < numCompiles-1) {
                 from = null;
                 ci++;
                 cc = compileChunks[ci];
             }
             cc.numPackages++;
+            cc.cost += cost;
             cc.srcs.addAll(s);
+            cc.packages.add(pkgName);
 
             // Calculate nice package names to use as information when compiling.
             String justPkgName = Util.justPackageName(pkgName);
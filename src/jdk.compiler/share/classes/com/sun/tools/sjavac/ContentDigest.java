@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.sjavac;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes digests of the contents of files, so that a file whose timestamp
+ * has changed, but whose content has not, need not be treated as modified.
+ * This is what happens to every file after a checkout or after restoring a
+ * cached workspace.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public class ContentDigest {
+
+    private static final String ALGORITHM = "SHA-256";
+
+    // Files are read through a buffer rather than mapped, since a mapping
+    // is only released by the garbage collector, and a mapped file can not
+    // be replaced on Windows while the server is running.
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> buffers =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUFFER_SIZE));
+
+    /**
+     * The digest of a file, together with the size and timestamp the file
+     * had when the digest was computed.
+     */
+    public static class Stamp {
+        public final long size;
+        public final long lastModified;
+        public final String digest;
+
+        public Stamp(long size, long lastModified, String digest) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+
+        /**
+         * Returns true if the file still has the size and timestamp it
+         * had when the digest was computed.
+         */
+        public boolean isCurrent(File file) {
+            return file.length() == size && file.lastModified() == lastModified;
+        }
+    }
+
+    /**
+     * Return the digest of the content of the file, as a hex string.
+     */
+    public static String of(File file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        ByteBuffer buf = buffers.get();
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buf.clear();
+            while (ch.read(buf) >= 0) {
+                buf.flip();
+                md.update(buf);
+                buf.clear();
+            }
+        }
+        StringBuilder b = new StringBuilder();
+        for (byte x : md.digest()) {
+            b.append(Character.forDigit((x >> 4) & 0xf, 16))
+             .append(Character.forDigit(x & 0xf, 16));
+        }
+        return b.toString();
+    }
+
+    /**
+     * Compute the digests of the files using the given number of threads.
+     * Files that can not be read are left out of the result.
+     */
+    public static Map<File,String> ofAll(Collection<File> files, int numThreads) {
+        Map<File,String> digests = new HashMap<>();
+        if (files.isEmpty())
+            return digests;
+
+        ExecutorService exec = Executors.newFixedThreadPool(Math.max(1, Math.min(numThreads, files.size())));
+        List<File> order = new ArrayList<>(files);
+        List<Future<String>> futs = new ArrayList<>();
+        for (File f : order) {
+            futs.add(exec.submit(() -> of(f)));
+        }
+        for (int i = 0; i < order.size(); i++) {
+            try {
+                digests.put(order.get(i), futs.get(i).get());
+            } catch (ExecutionException ee) {
+                Log.debug("Could not compute the digest of " + order.get(i) + ": " + ee.getCause());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        exec.shutdownNow();
+        return digests;
+    }
+}
@@ -35,6 +35,8 @@ import java.io.Writer;
 import java.net.URI;
 import java.nio.file.NoSuchFileException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -47,6 +49,7 @@ import java.util.stream.Collectors;
 
 import com.sun.tools.sjavac.comp.CompilationService;
 import com.sun.tools.sjavac.options.Options;
+import com.sun.tools.sjavac.options.SourceLocation;
 import com.sun.tools.sjavac.pubapi.PubApi;
 
 /**
@@ -59,6 +62,15 @@ import com.sun.tools.sjavac.pubapi.PubApi;
  *  deletion without notice.</b>
  */
 public class JavacState {
+    // The javac options that read classes from somewhere other than the
+    // class path. Only the jars on the class path are digested.
+    private static final List<String> CLASS_LOCATION_OPTIONS =
+            Arrays.asList("-bootclasspath", "--boot-class-path", "-Xbootclasspath",
+                          "-Xbootclasspath/a", "-Xbootclasspath/p", "-extdirs",
+                          "--extension-directories", "-endorseddirs",
+                          "--endorsed-directories", "--system", "--patch-module",
+                          "--upgrade-module-path", "--module-path", "-p");
+
     // The arguments to the compile. If not identical, then it cannot
     // be an incremental build!
     String theArgs;
@@ -256,27 +268,44 @@ public class JavacState {
     public void save() throws IOException {
         if (!needsSaving)
             return;
+
+        // Copy over the javac_state for the packages that did not need recompilation.
+        now.copyPackagesExcept(prev, recompiledPackages, new HashSet<String>());
+        computeMissingDigests();
+
+        // The text format is kept for debugging, the binary format is much
+        // faster to load for large source trees.
+        if (!options.getStateFormat().equals("text")) {
+            BinaryJavacState.write(javacState, theArgs, now);
+            return;
+        }
+
         try (FileWriter out = new FileWriter(javacState)) {
             StringBuilder b = new StringBuilder();
             long millisNow = System.currentTimeMillis();
             Date d = new Date(millisNow);
             SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss SSS");
-            b.append("# javac_state ver 0.4 generated "+millisNow+" "+df.format(d)+"\n");
+            b.append("# javac_state ver 0.5 generated "+millisNow+" "+df.format(d)+"\n");
             b.append("# This format might change at any time. Please do not depend on it.\n");
             b.append("# R arguments\n");
             b.append("# M module\n");
             b.append("# P package\n");
-            b.append("# S C source_tobe_compiled timestamp\n");
-            b.append("# S L link_only_source timestamp\n");
-            b.append("# G C generated_source timestamp\n");
+            b.append("# T compile_time_millis\n");
+            b.append("# H digest size timestamp classpath_jar\n");
+            b.append("# S C source_tobe_compiled timestamp digest\n");
+            b.append("# S L link_only_source timestamp digest\n");
+            b.append("# G C generated_source timestamp digest\n");
             b.append("# A artifact timestamp\n");
             b.append("# D S dependant -> source dependency\n");
             b.append("# D C dependant -> classpath dependency\n");
             b.append("# I pubapi\n");
             b.append("R ").append(theArgs).append("\n");
+            for (Map.Entry<String,ContentDigest.Stamp> e : now.classpathDigests().entrySet()) {
+                ContentDigest.Stamp s = e.getValue();
+                b.append("H ").append(s.digest).append(" ").append(s.size).append(" ")
+                 .append(s.lastModified).append(" ").append(e.getKey()).append("\n");
+            }
 
-            // Copy over the javac_state for the packages that did not need recompilation.
-            now.copyPackagesExcept(prev, recompiledPackages, new HashSet<String>());
             // Save the packages, ie package names, dependencies, pubapis and artifacts!
             // I.e. the lot.
             Module.saveModules(now.modules(), b);
@@ -301,6 +330,10 @@ public class JavacState {
 
         Log.debug("Loading javac state file: " + db.javacState);
 
+        if (BinaryJavacState.isBinary(db.javacState)) {
+            return loadBinary(options, db);
+        }
+
         try (BufferedReader in = new BufferedReader(new FileReader(db.javacState))) {
             for (;;) {
                 String l = in.readLine();
@@ -314,6 +347,10 @@ public class JavacState {
                         if (lastModule == null) { syntaxError = true; break; }
                         lastPackage = db.prev.loadPackage(lastModule, l);
                     } else
+                    if (c == 'T') {
+                        if (lastModule == null || lastPackage == null) { syntaxError = true; break; }
+                        lastPackage.loadCompileTime(l);
+                    } else
                     if (c == 'D') {
                         if (lastModule == null || lastPackage == null) { syntaxError = true; break; }
                         char depType = l.charAt(2);
@@ -337,6 +374,9 @@ public class JavacState {
                         if (lastModule == null || lastPackage == null) { syntaxError = true; break; }
                         lastSource = db.prev.loadSource(lastPackage, l, true);
                     } else
+                    if (c == 'H') {
+                        db.prev.loadClasspathDigest(l);
+                    } else
                     if (c == 'R') {
                         String ncmdl = "R "+db.theArgs;
                         if (!l.equals(ncmdl)) {
@@ -348,7 +388,7 @@ public class JavacState {
                             int sp = l.indexOf(" ", 18);
                             if (sp != -1) {
                                 String ver = l.substring(18,sp);
-                                if (!ver.equals("0.4")) {
+                                if (!ver.equals("0.5")) {
                     break;
                                  }
                 foundCorrectVerNr = true;
@@ -378,6 +418,37 @@ public class JavacState {
         if (syntaxError == true) {
             Log.warn("Dropping old javac_state since it contains syntax errors.");
             db = new JavacState(options, true);
+        } else
+        if (!noFileFound && !options.getStateFormat().equals("text")) {
+            // Rewrite the state in the requested format.
+            db.needsSaving();
+        }
+        db.prev.calculateDependents();
+        return db;
+    }
+
+    /**
+     * Load a javac_state file in the binary format.
+     */
+    private static JavacState loadBinary(Options options, JavacState db) {
+        try {
+            BinaryJavacState.Reader in = new BinaryJavacState.Reader(db.javacState);
+            if (in.version() != BinaryJavacState.VERSION) {
+                Log.debug("Dropping old javac_state since it is of an old version.");
+                db = new JavacState(options, true);
+            } else if (!in.args().equals(db.theArgs)) {
+                Log.debug("Dropping old javac_state since a new command line is used!");
+                db = new JavacState(options, true);
+            } else {
+                in.loadInto(db.prev);
+                if (options.getStateFormat().equals("text")) {
+                    // Rewrite the state in the requested format.
+                    db.needsSaving();
+                }
+            }
+        } catch (IOException e) {
+            Log.warn("Dropping old javac_state because of errors when reading it.");
+            db = new JavacState(options, true);
         }
         db.prev.calculateDependents();
         return db;
@@ -507,6 +578,13 @@ public class JavacState {
      */
     public void taintPackagesDependingOnChangedClasspathPackages() throws IOException {
 
+        // 0. If the class path has the same content as during the last build,
+        // the public apis of the classes on it have not changed either.
+        if (isClasspathUnchanged()) {
+            Log.debug("The class path is unchanged, no need to check its public apis.");
+            return;
+        }
+
         // 1. Collect fully qualified names of all interesting classpath dependencies
         Set<String> fqDependencies = new HashSet<>();
         for (Package pkg : prev.packages().values()) {
@@ -658,26 +736,140 @@ public class JavacState {
      * If a source file timestamp suddenly is older than what is known
      * about it in javac_state, then consider it modified, but print
      * a warning!
+     * A file whose timestamp has changed, but whose content has the
+     * digest recorded in javac_state, is not modified.
      */
     private Set<Source> calculateModifiedSources() {
         Set<Source> modified = new HashSet<>();
+        List<Source> touched = new ArrayList<>();
         for (String src : now.sources().keySet()) {
             Source n = now.sources().get(src);
             Source t = prev.sources().get(src);
-            if (prev.sources().get(src) != null) {
-                if (t != null) {
-                    if (n.lastModified() > t.lastModified()) {
-                        modified.add(n);
-                    } else if (n.lastModified() < t.lastModified()) {
-                        modified.add(n);
-                        Log.warn("The source file "+n.name()+" timestamp has moved backwards in time.");
-                    }
-                }
+            if (t == null)
+                continue;
+            if (n.lastModified() == t.lastModified()) {
+                if (n.digest() == null)
+                    n.setDigest(t.digest());
+            } else if (t.digest() != null) {
+                touched.add(n);
+            } else {
+                markModified(modified, n, t);
+            }
+        }
+
+        computeDigests(touched);
+        for (Source n : touched) {
+            Source t = prev.sources().get(n.name());
+            if (t.digest().equals(n.digest())) {
+                Log.debug("The source file "+n.name()+" has a new timestamp, but the same content.");
+                // Record the new timestamp.
+                needsSaving();
+            } else {
+                markModified(modified, n, t);
             }
         }
         return modified;
     }
 
+    private void markModified(Set<Source> modified, Source n, Source t) {
+        modified.add(n);
+        if (n.lastModified() < t.lastModified()) {
+            Log.warn("The source file "+n.name()+" timestamp has moved backwards in time.");
+        }
+    }
+
+    /**
+     * Compute the digests of the sources that do not have one yet.
+     */
+    private void computeDigests(Collection<Source> sources) {
+        Map<File,Source> files = new HashMap<>();
+        for (Source s : sources) {
+            if (s.digest() == null && s.file() != null)
+                files.put(s.file(), s);
+        }
+        if (files.isEmpty())
+            return;
+        long start = System.currentTimeMillis();
+        Map<File,String> digests = ContentDigest.ofAll(files.keySet(), numCores);
+        digests.forEach((f, d) -> files.get(f).setDigest(d));
+        Log.debug("Computed the digests of "+digests.size()+" source files in "+
+                  (System.currentTimeMillis()-start)+" ms.");
+    }
+
+    /**
+     * Make sure that all sources that are saved in javac_state have a digest.
+     */
+    private void computeMissingDigests() {
+        List<Source> sources = new ArrayList<>();
+        for (Package p : now.packages().values()) {
+            sources.addAll(p.sources().values());
+        }
+        computeDigests(sources);
+    }
+
+    /**
+     * Return true if the jar files on the class path, and the running jdk,
+     * are the same as in javac_state. A jar with the same size and timestamp
+     * is trusted to be unchanged, other jars are digested again. Directories
+     * on the class path, and classes found through any other option, are
+     * never considered unchanged.
+     */
+    private boolean isClasspathUnchanged() {
+        if (!options.getModuleSearchPaths().isEmpty())
+            return false;
+        for (String arg : options.getJavacArgs()) {
+            for (String opt : CLASS_LOCATION_OPTIONS) {
+                if (arg.equals(opt) || arg.startsWith(opt + "=") || arg.startsWith(opt + ":"))
+                    return false;
+            }
+        }
+
+        List<File> jars = new ArrayList<>();
+        for (SourceLocation sl : options.getClassSearchPath()) {
+            File f = sl.getPath().toFile();
+            if (f.isFile()) {
+                jars.add(f);
+            } else if (f.exists()) {
+                return false;
+            }
+        }
+
+        Map<String,ContentDigest.Stamp> prevDigests = prev.classpathDigests();
+        Map<String,ContentDigest.Stamp> nowDigests = now.classpathDigests();
+        nowDigests.clear();
+        List<File> touched = new ArrayList<>();
+        for (File f : jars) {
+            ContentDigest.Stamp s = prevDigests.get(f.getPath());
+            if (s != null && s.isCurrent(f)) {
+                nowDigests.put(f.getPath(), s);
+            } else {
+                touched.add(f);
+            }
+        }
+        long start = System.currentTimeMillis();
+        Map<File,String> digests = ContentDigest.ofAll(touched, numCores);
+        Log.debug("Computed the digests of "+digests.size()+" class path jars in "+
+                  (System.currentTimeMillis()-start)+" ms.");
+        digests.forEach((f, d) -> nowDigests.put(f.getPath(),
+                                                 new ContentDigest.Stamp(f.length(), f.lastModified(), d)));
+        nowDigests.put("<jdk>" + System.getProperty("java.home"),
+                       new ContentDigest.Stamp(0, 0, System.getProperty("java.runtime.version")));
+
+        if (!touched.isEmpty()) {
+            // Record the new timestamps, even if the contents are the same.
+            needsSaving();
+        }
+        if (digests.size() != touched.size() || !nowDigests.keySet().equals(prevDigests.keySet()))
+            return false;
+        for (Map.Entry<String,ContentDigest.Stamp> e : nowDigests.entrySet()) {
+            if (!e.getValue().digest.equals(prevDigests.get(e.getKey()).digest)) {
+                needsSaving();
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Recursively delete a directory and all its contents.
      */
@@ -734,6 +926,12 @@ public class JavacState {
         Map<String,Transformer> suffixRules = new HashMap<>();
         suffixRules.put(".java", compileJavaPackages);
         compileJavaPackages.setExtra(args);
+        Map<String, Long> previousCompileTimes = new HashMap<>();
+        for (Package p : prev.packages().values()) {
+            if (p.compileTime() > 0)
+                previousCompileTimes.put(p.name(), p.compileTime());
+        }
+        compileJavaPackages.setPreviousCompileTimes(previousCompileTimes);
         rcValue[0] = perform(sjavac, binDir, suffixRules);
         recentlyCompiled.addAll(taintedPackages());
         clearTaintedPackages();
@@ -814,6 +1012,13 @@ public class JavacState {
             for (String p : srcs.keySet()) {
                 recompiledPackages.add(p);
             }
+            // Record how long the packages took to compile, to balance the next compile.
+            if (t == compileJavaPackages) {
+                for (Map.Entry<String, Long> a : compileJavaPackages.compileTimes().entrySet()) {
+                    Package pkgNow = now.findModuleFromPackageName(a.getKey()).lookupPackage(a.getKey());
+                    pkgNow.setCompileTime(a.getValue());
+                }
+            }
             // The transform is done! Extract all the artifacts and store the info into the Package objects.
             for (Map.Entry<String, Set<URI>> a : packageArtifacts.entrySet()) {
                 Module mnow = now.findModuleFromPackageName(a.getKey());
@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -86,10 +87,16 @@ public class Package implements Comparable<Package> {
 
     // This is the public api of this package.
     private PubApi pubApi = new PubApi();
+    // Reads the public api from a binary javac_state file the first time it is
+    // asked for, or null if it has already been read.
+    private Supplier<PubApi> pubApiLoader;
     // Map from source file name to Source info object.
     private Map<String,Source> sources = new HashMap<>();
     // This package generated these artifacts.
     private Map<String,File> artifacts = new HashMap<>();
+    // The time in milliseconds that compiling this package took the last time
+    // it was compiled, or 0 if not known.
+    private long compileTime;
 
     public Package(Module m, String n) {
         int c = n.indexOf(":");
@@ -108,7 +115,15 @@ public class Package implements Comparable<Package> {
     public String dirname() { return dirname; }
     public Map<String,Source> sources() { return sources; }
     public Map<String,File> artifacts() { return artifacts; }
-    public PubApi getPubApi() { return pubApi; }
+    public PubApi getPubApi() {
+        if (pubApiLoader != null) {
+            pubApi = pubApiLoader.get();
+            pubApiLoader = null;
+        }
+        return pubApi;
+    }
+    public long compileTime() { return compileTime; }
+    public void setCompileTime(long ms) { compileTime = ms; }
 
     public Map<String,Set<String>> typeDependencies() { return dependencies; }
     public Map<String,Set<String>> typeClasspathDependencies() { return cpDependencies; }
@@ -160,15 +175,28 @@ public class Package implements Comparable<Package> {
      * describe the results of compiling this package before.
      */
     public boolean existsInJavacState() {
-        return artifacts.size() > 0 || !pubApi.isEmpty();
+        return artifacts.size() > 0 || pubApiLoader != null || !pubApi.isEmpty();
     }
 
     public boolean hasPubApiChanged(PubApi newPubApi) {
-        return !newPubApi.isBackwardCompatibleWith(pubApi);
+        return !newPubApi.isBackwardCompatibleWith(getPubApi());
     }
 
     public void setPubapi(PubApi newPubApi) {
         pubApi = newPubApi;
+        pubApiLoader = null;
+    }
+
+    public void setPubApiLoader(Supplier<PubApi> loader) {
+        pubApiLoader = loader;
+    }
+
+    /**
+     * Returns the loader of the public api, if it has not been read yet,
+     * or null.
+     */
+    public Supplier<PubApi> getPubApiLoader() {
+        return pubApiLoader;
     }
 
     public void setDependencies(Map<String, Set<String>> ds, boolean cp) {
@@ -180,6 +208,8 @@ public class Package implements Comparable<Package> {
 
     public void save(StringBuilder b) {
         b.append("P ").append(name).append("\n");
+        if (compileTime > 0)
+            b.append("T ").append(compileTime).append("\n");
         Source.saveSources(sources, b);
         saveDependencies(b);
         savePubapi(b);
@@ -191,6 +221,15 @@ public class Package implements Comparable<Package> {
         return new Package(module, name);
     }
 
+    public void loadCompileTime(String l) {
+        try {
+            compileTime = Long.parseLong(l.substring(2));
+        } catch (NumberFormatException e) {
+            // The compile time is only a hint, ignore it.
+            compileTime = 0;
+        }
+    }
+
     public void saveDependencies(StringBuilder b) {
 
         // Dependencies where *to* is among sources
@@ -209,7 +248,7 @@ public class Package implements Comparable<Package> {
     }
 
     public void savePubapi(StringBuilder b) {
-        pubApi.asListOfStrings()
+        getPubApi().asListOfStrings()
               .stream()
               .flatMap(l -> Stream.of("I ", l, "\n"))
               .forEach(b::append);
@@ -252,6 +291,10 @@ public class Package implements Comparable<Package> {
         int dp = l.indexOf(' ',2);
         String fn = l.substring(2,dp);
         long last_modified = Long.parseLong(l.substring(dp+1));
+        loadArtifact(fn, last_modified);
+    }
+
+    public void loadArtifact(String fn, long last_modified) {
         File f = new File(fn);
         if (f.exists() && f.lastModified() != last_modified) {
             // Hmm, the artifact on disk does not have the same last modified
@@ -69,6 +69,8 @@ public class Source implements Comparable<Source> {
     private boolean isGenerated;
     // If the source is only linked to, not compiled.
     private boolean linkedOnly;
+    // The digest of the content of the source, or null if not known.
+    private String digest;
 
     @Override
     public boolean equals(Object o) {
@@ -121,6 +123,14 @@ public class Source implements Comparable<Source> {
         return lastModified;
     }
 
+    public String digest() {
+        return digest;
+    }
+
+    public void setDigest(String d) {
+        digest = d;
+    }
+
     public void setPackage(Package p) {
         pkg = p;
     }
@@ -144,15 +154,19 @@ public class Source implements Comparable<Source> {
     private void save(StringBuilder b) {
         String CL = linkedOnly?"L":"C";
         String GS = isGenerated?"G":"S";
-        b.append(GS+" "+CL+" "+name+" "+file.lastModified()+"\n");
+        b.append(GS+" "+CL+" "+name+" "+file.lastModified());
+        if (digest != null)
+            b.append(" "+digest);
+        b.append("\n");
     }
-    // Parse a line that looks like this:
-    // S C /code/alfa/A.java 1357631228000
+    // Parse a line that looks like this, where the digest is optional:
+    // S C /code/alfa/A.java 1357631228000 5e6f...
     static public Source load(Package lastPackage, String l, boolean isGenerated) {
         int sp = l.indexOf(' ',4);
         if (sp == -1) return null;
         String name = l.substring(4,sp);
-        long last_modified = Long.parseLong(l.substring(sp+1));
+        int dp = l.indexOf(' ',sp+1);
+        long last_modified = Long.parseLong(dp == -1 ? l.substring(sp+1) : l.substring(sp+1,dp));
 
         boolean isLinkedOnly = false;
         if (l.charAt(2) == 'L') {
@@ -161,6 +175,14 @@ public class Source implements Comparable<Source> {
             isLinkedOnly = false;
         } else return null;
 
+        Source s = load(lastPackage, name, last_modified, isGenerated, isLinkedOnly);
+        if (dp != -1)
+            s.setDigest(l.substring(dp+1));
+        return s;
+    }
+
+    static public Source load(Package lastPackage, String name, long last_modified,
+                              boolean isGenerated, boolean isLinkedOnly) {
         Source s = new Source(lastPackage, name, last_modified);
         s.file = new File(name);
         if (isGenerated) s.markAsGenerated();
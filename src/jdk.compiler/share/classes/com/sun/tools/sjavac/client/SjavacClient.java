@@ -28,29 +28,25 @@ package com.sun.tools.sjavac.client;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
 import java.io.Reader;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import com.sun.tools.javac.main.Main;
 import com.sun.tools.javac.main.Main.Result;
 import com.sun.tools.sjavac.Log;
 import com.sun.tools.sjavac.Util;
 import com.sun.tools.sjavac.options.OptionHelper;
 import com.sun.tools.sjavac.options.Options;
-import com.sun.tools.sjavac.server.CompilationSubResult;
 import com.sun.tools.sjavac.server.PortFile;
 import com.sun.tools.sjavac.server.Sjavac;
 import com.sun.tools.sjavac.server.SjavacServer;
 
-import static java.util.stream.Collectors.joining;
-
 /**
  * Sjavac implementation that delegates requests to a SjavacServer.
  *
@@ -85,6 +81,9 @@ public class SjavacClient implements Sjavac {
     // Store the server conf settings here.
     private final String settings;
 
+    // The open connections of this process, one per port file.
+    private static final Map<String, SjavacConnection> connections = new HashMap<>();
+
     public SjavacClient(Options options) {
         String tmpServerConf = options.getServerConf();
         String serverConf = (tmpServerConf!=null)? tmpServerConf : "";
@@ -115,41 +114,8 @@ public class SjavacClient implements Sjavac {
     @Override
     public Result compile(String[] args) {
         Result result = null;
-        try (Socket socket = tryConnect()) {
-            PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()));
-            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-
-            // Send args array to server
-            out.println(args.length);
-            for (String arg : args)
-                out.println(arg);
-            out.flush();
-
-            // Read server response line by line
-            String line;
-            while (null != (line = in.readLine())) {
-                if (!line.contains(":")) {
-                    throw new AssertionError("Could not parse protocol line: >>\"" + line + "\"<<");
-                }
-                String[] typeAndContent = line.split(":", 2);
-                String type = typeAndContent[0];
-                String content = typeAndContent[1];
-
-                try {
-                    if (Log.isDebugging()) {
-                        // Distinguish server generated output if debugging.
-                        content = "[sjavac-server] " + content;
-                    }
-                    Log.log(Log.Level.valueOf(type), content);
-                    continue;
-                } catch (IllegalArgumentException e) {
-                    // Parsing of 'type' as log level failed.
-                }
-
-                if (type.equals(SjavacServer.LINE_TYPE_RC)) {
-                    result = Main.Result.valueOf(content);
-                }
-            }
+        try {
+            result = getConnection().compile(args);
         } catch (PortFileInaccessibleException e) {
             Log.error("Port file inaccessible.");
             result = Result.ERROR;
@@ -164,14 +130,25 @@ public class SjavacClient implements Sjavac {
             result = Result.ERROR;
         }
 
-        if (result == null) {
-            // No LINE_TYPE_RC was found.
-            result = Result.ERROR;
-        }
-
         return result;
     }
 
+    /*
+     * Returns the connection to the server, shared by all clients in this
+     * process that use the same port file, and opens a new one if there is
+     * no connection or if it has been closed.
+     */
+    private SjavacConnection getConnection() throws IOException, InterruptedException {
+        synchronized (connections) {
+            SjavacConnection c = connections.get(portFile.getFilename());
+            if (c == null || !c.isOpen()) {
+                c = new SjavacConnection(tryConnect());
+                connections.put(portFile.getFilename(), c);
+            }
+            return c;
+        }
+    }
+
     /*
      * Makes MAX_CONNECT_ATTEMPTS attepmts to connect to server.
      */
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.sjavac.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.tools.javac.main.Main.Result;
+import com.sun.tools.sjavac.Log;
+import com.sun.tools.sjavac.Util;
+import com.sun.tools.sjavac.server.SjavacProtocol;
+import com.sun.tools.sjavac.server.SjavacProtocol.Frame;
+
+/**
+ * A connection to a sjavac server, which can be shared by several threads
+ * that compile at the same time. Each compilation is a request with its own
+ * id. A reader thread hands the frames sent back by the server to the thread
+ * that made the request, which logs the messages in its own log.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public class SjavacConnection implements Closeable {
+
+    // Handed to the requests in progress when the connection is closed.
+    private static final Frame CLOSED = new Frame(0, (byte) 0);
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Map<Integer, BlockingQueue<Frame>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private volatile boolean open = true;
+
+    public SjavacConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        try {
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            SjavacProtocol.handshake(socket, in, out);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+
+        Thread reader = new Thread(this::readFrames, "sjavac-connection-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Returns true if the connection can still be used for new requests.
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Ask the server to compile, and log the messages it sends back, in
+     * the log of the calling thread.
+     */
+    public Result compile(String[] args) throws IOException, InterruptedException {
+        int id = nextId.incrementAndGet();
+        BlockingQueue<Frame> frames = new LinkedBlockingQueue<>();
+        pending.put(id, frames);
+        try {
+            if (!open)
+                throw new IOException("Connection to server closed");
+            synchronized (out) {
+                SjavacProtocol.writeFrame(out, new Frame(id, SjavacProtocol.COMPILE, args));
+            }
+            while (true) {
+                Frame frame = frames.take();
+                switch (frame.type) {
+                    case SjavacProtocol.LOG:
+                        log(frame);
+                        break;
+                    case SjavacProtocol.RESULT:
+                        return Result.valueOf(frame.strings[0]);
+                    default:
+                        throw new IOException("Connection to server closed");
+                }
+            }
+        } finally {
+            pending.remove(id);
+        }
+    }
+
+    private void log(Frame frame) {
+        Log.Level level = Log.Level.valueOf(frame.strings[0]);
+        String msg = frame.strings[1];
+        if (Log.isDebugging()) {
+            // Distinguish server generated output if debugging.
+            Util.getLines(msg).forEach(line -> Log.log(level, "[sjavac-server] " + line));
+        } else {
+            Log.log(level, msg);
+        }
+    }
+
+    private void readFrames() {
+        try {
+            Frame frame;
+            while ((frame = SjavacProtocol.readFrame(in)) != null) {
+                BlockingQueue<Frame> frames = pending.get(frame.id);
+                if (frames != null)
+                    frames.add(frame);
+            }
+        } catch (IOException e) {
+            // Treated as the end of the connection.
+        } finally {
+            open = false;
+            for (BlockingQueue<Frame> frames : pending.values())
+                frames.add(CLOSED);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed.
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        socket.close();
+    }
+}
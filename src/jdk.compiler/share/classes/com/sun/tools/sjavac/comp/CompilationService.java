@@ -26,7 +26,6 @@
 package com.sun.tools.sjavac.comp;
 
 import java.io.File;
-import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URI;
@@ -62,6 +61,9 @@ import com.sun.tools.sjavac.server.SysInfo;
  */
 public class CompilationService {
 
+    // Shared by all requests to the server.
+    private static final FileManagerPool fileManagers = new FileManagerPool();
+
     public SysInfo getSysInfo() {
         return new SysInfo(Runtime.getRuntime().availableProcessors(),
                            Runtime.getRuntime().maxMemory());
@@ -75,7 +77,9 @@ public class CompilationService {
                                      Set<URI> visibleSources) {
 
         JavacTool compiler = (JavacTool) ToolProvider.getSystemJavaCompiler();
-        try (StandardJavaFileManager fm = compiler.getStandardFileManager(null, null, null)) {
+        StandardJavaFileManager fm = fileManagers.acquire(args);
+        boolean reusable = false;
+        try {
             SmartFileManager sfm = new SmartFileManager(fm);
             Context context = new Context();
 
@@ -100,6 +104,7 @@ public class CompilationService {
             // Create a log to capture compiler output
             StringWriter stderrLog = new StringWriter();
             Result result;
+            boolean crashed = false;
             PublicApiCollector pubApiCollector = new PublicApiCollector(context, explicitJFOs);
             PathAndPackageVerifier papVerifier = new PathAndPackageVerifier();
             NewDependencyCollector depsCollector = new NewDependencyCollector(context, explicitJFOs);
@@ -118,6 +123,7 @@ public class CompilationService {
                                                              explicitJFOs,
                                                              context);
                     sfm.setSymbolFileEnabled(!com.sun.tools.javac.util.Options.instance(context).isSet("ignore.symbol.file"));
+                    fileManagers.recordJars(fm);
                     task.addTaskListener(depsCollector);
                     task.addTaskListener(pubApiCollector);
                     task.addTaskListener(papVerifier);
@@ -132,6 +138,7 @@ public class CompilationService {
                 Log.error(Util.getStackTrace(e));
                 stderrLog.append(Util.getStackTrace(e));
                 result = Result.ERROR;
+                crashed = true;
             }
 
             compilationResult.packageArtifacts = sfm.getPackageArtifacts();
@@ -148,9 +155,10 @@ public class CompilationService {
             compilationResult.stderr = stderrLog.toString();
             compilationResult.result = result;
 
+            reusable = !crashed && (result == Result.OK || result == Result.ERROR);
             return compilationResult;
-        } catch (IOException e) {
-            throw new Error(e);
+        } finally {
+            fileManagers.release(args, fm, reusable);
         }
     }
 
@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.sjavac.comp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.tools.JavaFileManager.Location;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+import com.sun.tools.javac.api.JavacTool;
+import com.sun.tools.sjavac.ContentDigest;
+import com.sun.tools.sjavac.Log;
+
+/**
+ * Keeps file managers alive between compilations, so that the jars on the
+ * class path are opened and indexed once, rather than once per compilation.
+ * This matters most in the server, where the same packages are compiled with
+ * the same arguments over and over.
+ *
+ * Only the file manager is reused. Each compilation still gets a new
+ * Context, since the symbols completed by one compilation belong to its
+ * Symtab and Types and can not be handed to another.
+ *
+ * A file manager is only reused for the exact same javac arguments, since it
+ * keeps the locations set by the previous compilation for any option that is
+ * not given again. The jars it has read are recorded with their digests, and
+ * all file managers for the arguments are dropped when one of them changes.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+class FileManagerPool {
+
+    // The module locations cache what they have found on the module path,
+    // which can not be checked as cheaply as a list of jars.
+    private static final List<String> MODULE_OPTIONS =
+            Arrays.asList("--module-path", "-p", "--upgrade-module-path",
+                          "--module-source-path");
+
+    private static final Location[] ARCHIVE_LOCATIONS = {
+        StandardLocation.PLATFORM_CLASS_PATH,
+        StandardLocation.CLASS_PATH,
+        StandardLocation.SOURCE_PATH,
+        StandardLocation.ANNOTATION_PROCESSOR_PATH
+    };
+
+    private static final int MAX_ARGS = 8;
+
+    private final int maxIdle = Runtime.getRuntime().availableProcessors();
+
+    private final Path javaHome = Paths.get(System.getProperty("java.home"));
+
+    // All file managers created for the same arguments.
+    private static class Entry {
+        final Deque<StandardJavaFileManager> idle = new ArrayDeque<>();
+        // The jars read through these file managers, or null if not known yet.
+        Map<File,Stamp> stamps;
+        int generation;
+    }
+
+    private static class Stamp {
+        long size;
+        long lastModified;
+        final String digest;
+
+        Stamp(long size, long lastModified, String digest) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+
+        boolean isCurrent(File f) {
+            return f.length() == size && f.lastModified() == lastModified;
+        }
+    }
+
+    // A file manager handed out, with the generation of its entry.
+    private static class Lease {
+        final int generation;
+        // The jars as they were before the compilation read them, without
+        // digests, or null if not recorded.
+        Map<File,Stamp> jars;
+
+        Lease(int generation) {
+            this.generation = generation;
+        }
+    }
+
+    // Most recently used arguments last.
+    private final Map<List<String>,Entry> entries =
+            new LinkedHashMap<List<String>,Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<String>,Entry> eldest) {
+                    if (size() <= MAX_ARGS)
+                        return false;
+                    closeAll(eldest.getValue());
+                    return true;
+                }
+            };
+
+    private final Map<StandardJavaFileManager,Lease> inUse = new IdentityHashMap<>();
+
+    /**
+     * Return a file manager for a compilation with the given arguments,
+     * either one left by a previous compilation or a new one.
+     */
+    synchronized StandardJavaFileManager acquire(String[] args) {
+        if (!isReusable(args))
+            return newFileManager();
+
+        Entry e = entries.computeIfAbsent(Arrays.asList(args), k -> new Entry());
+        if (e.stamps != null && !isUpToDate(e.stamps)) {
+            Log.debug("A jar has changed, dropping " + e.idle.size() + " warm file managers.");
+            closeAll(e);
+            e.stamps = null;
+            e.generation++;
+        }
+        StandardJavaFileManager fm = e.idle.poll();
+        if (fm != null) {
+            Log.debug("Reusing a warm file manager.");
+        } else {
+            fm = newFileManager();
+        }
+        inUse.put(fm, new Lease(e.generation));
+        return fm;
+    }
+
+    /**
+     * Record the size and timestamp of the jars that the file manager can
+     * read. This must be called once its locations have been set from the
+     * arguments, and before the compilation reads any jar, so that a jar
+     * rewritten during the compilation is not taken to be what the file
+     * manager has read.
+     */
+    void recordJars(StandardJavaFileManager fm) {
+        Map<File,Stamp> jars = new HashMap<>();
+        for (File f : jarsOf(fm))
+            jars.put(f, new Stamp(f.length(), f.lastModified(), null));
+        synchronized (this) {
+            Lease lease = inUse.get(fm);
+            if (lease != null)
+                lease.jars = jars;
+        }
+    }
+
+    /**
+     * Give back a file manager when the compilation is done. It is closed,
+     * rather than kept, if the compilation did not end normally.
+     */
+    void release(String[] args, StandardJavaFileManager fm, boolean ok) {
+        List<String> key = Arrays.asList(args);
+        Lease lease;
+        boolean needsStamps;
+        synchronized (this) {
+            lease = inUse.remove(fm);
+            Entry e = entries.get(key);
+            if (!ok || lease == null || e == null || lease.generation != e.generation
+                    || e.idle.size() >= maxIdle) {
+                close(fm);
+                return;
+            }
+            needsStamps = e.stamps == null;
+        }
+
+        // The jars are digested without holding the lock, so that other
+        // compilations can acquire file managers in the meantime.
+        Map<File,Stamp> stamps = needsStamps ? stampsOf(lease.jars) : null;
+        if (needsStamps && stamps == null) {
+            close(fm);
+            return;
+        }
+
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e != null && lease.generation == e.generation && e.idle.size() < maxIdle) {
+                if (e.stamps == null)
+                    e.stamps = stamps;
+                if (e.stamps != null) {
+                    e.idle.push(fm);
+                    return;
+                }
+            }
+        }
+        close(fm);
+    }
+
+    private boolean isReusable(String[] args) {
+        // An open jar can not be replaced on Windows.
+        if (File.separatorChar == '\\')
+            return false;
+        for (String arg : args) {
+            for (String opt : MODULE_OPTIONS) {
+                if (arg.equals(opt) || arg.startsWith(opt + "="))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private StandardJavaFileManager newFileManager() {
+        return JavacTool.create().getStandardFileManager(null, null, null);
+    }
+
+    /**
+     * Return the jars that the file manager can read. The jars of the
+     * running JDK are left out, they can not change under the server.
+     */
+    private Set<File> jarsOf(StandardJavaFileManager fm) {
+        Set<File> jars = new HashSet<>();
+        for (Location l : ARCHIVE_LOCATIONS) {
+            Iterable<? extends Path> paths = fm.getLocationAsPaths(l);
+            if (paths == null)
+                continue;
+            for (Path p : paths) {
+                File f = p.toFile();
+                if (f.isFile() && !p.toAbsolutePath().startsWith(javaHome))
+                    jars.add(f);
+            }
+        }
+        return jars;
+    }
+
+    /**
+     * Add the digests to the jars recorded before the compilation. Return
+     * null if the jars were not recorded, if a jar could not be read, or if
+     * a jar has changed since it was recorded.
+     */
+    private Map<File,Stamp> stampsOf(Map<File,Stamp> jars) {
+        if (jars == null)
+            return null;
+        long start = System.currentTimeMillis();
+        Map<File,String> digests = ContentDigest.ofAll(jars.keySet(), maxIdle);
+        Log.debug("Computed the digests of " + digests.size() + " jars of a warm file manager in " +
+                  (System.currentTimeMillis() - start) + " ms.");
+        if (digests.size() != jars.size())
+            return null;
+        Map<File,Stamp> stamps = new HashMap<>();
+        for (Map.Entry<File,Stamp> me : jars.entrySet()) {
+            File f = me.getKey();
+            Stamp s = me.getValue();
+            if (!s.isCurrent(f))
+                return null;
+            stamps.put(f, new Stamp(s.size, s.lastModified, digests.get(f)));
+        }
+        return stamps;
+    }
+
+    /**
+     * Check that the jars are the same as when they were recorded. Only a
+     * jar whose size or timestamp has changed is digested again.
+     */
+    private boolean isUpToDate(Map<File,Stamp> stamps) {
+        for (Map.Entry<File,Stamp> me : stamps.entrySet()) {
+            File f = me.getKey();
+            Stamp s = me.getValue();
+            if (!f.isFile())
+                return false;
+            if (s.isCurrent(f))
+                continue;
+            try {
+                if (!ContentDigest.of(f).equals(s.digest))
+                    return false;
+            } catch (IOException e) {
+                return false;
+            }
+            // Touched, but not changed.
+            s.size = f.length();
+            s.lastModified = f.lastModified();
+        }
+        return true;
+    }
+
+    private void closeAll(Entry e) {
+        for (StandardJavaFileManager fm : e.idle)
+            close(fm);
+        e.idle.clear();
+    }
+
+    private void close(StandardJavaFileManager fm) {
+        try {
+            fm.close();
+        } catch (IOException e) {
+            Log.debug("Could not close a file manager: " + e);
+        }
+    }
+}
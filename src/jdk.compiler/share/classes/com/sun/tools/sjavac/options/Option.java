@@ -296,6 +296,12 @@ public enum Option {
             String p = iter.current().substring(arg.length());
             helper.stateDir(Paths.get(p));
         }
+    },
+    STATE_FORMAT("--state-format=", "Format of the javac_state file, binary (default) or text.") {
+        @Override
+        protected void processMatching(ArgumentIterator iter, OptionHelper helper) {
+            helper.stateFormat(iter.current().substring(arg.length()));
+        }
     };
 
 
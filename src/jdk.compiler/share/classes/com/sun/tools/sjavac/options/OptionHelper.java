@@ -107,6 +107,9 @@ public abstract class OptionHelper {
     /** Sets the directory for state and log files generated by sjavac */
     public abstract void stateDir(Path dir);
 
+    /** Sets the format of the javac_state file, binary or text */
+    public abstract void stateFormat(String format);
+
     /** Sets the implicit policy */
     public abstract void implicit(String policy);
 
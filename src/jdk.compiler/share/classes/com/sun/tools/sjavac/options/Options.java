@@ -67,6 +67,7 @@ public class Options {
     private Path sourceReferenceList;
     private int numCores = 4;
     private String implicitPolicy = "none";
+    private String stateFormat = "binary";
     private List<String> javacArgs = new ArrayList<>();
 
     private Map<String, Transformer> trRules = new HashMap<>();
@@ -101,6 +102,11 @@ public class Options {
         return stateDir;
     }
 
+    /** Get the format of the javac_state file, "binary" or "text". */
+    public String getStateFormat() {
+        return stateFormat;
+    }
+
     /** Get all source locations for files to be compiled */
     public List<SourceLocation> getSources() {
         return sources;
@@ -498,6 +504,15 @@ public class Options {
             stateDir = dir.toAbsolutePath();
         }
 
+        @Override
+        public void stateFormat(String format) {
+            if (!format.equals("binary") && !format.equals("text")) {
+                reportError("Unknown javac_state format: " + format);
+                return;
+            }
+            stateFormat = format;
+        }
+
         private List<SourceLocation> createSourceLocations(List<Path> paths) {
             List<SourceLocation> result = new ArrayList<>();
             for (Path path : paths) {
@@ -27,23 +27,30 @@ package com.sun.tools.sjavac.server;
 
 import com.sun.tools.javac.main.Main;
 import com.sun.tools.sjavac.Log;
-import com.sun.tools.sjavac.Util;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.net.Socket;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
-import static com.sun.tools.sjavac.server.SjavacServer.LINE_TYPE_RC;
+import com.sun.tools.sjavac.server.SjavacProtocol.Frame;
 
 
 /**
  * A RequestHandler handles requests performed over a socket. Specifically it
- *  - Reads the command string specifying which method is to be invoked
- *  - Reads the appropriate arguments
+ *  - Reads the frames sent by the client, see {@link SjavacProtocol}
+ *  - Starts a thread for each compilation request
  *  - Delegates the actual invocation to the given sjavac implementation
- *  - Writes the result back to the socket output stream
+ *  - Writes the log messages and the result back to the socket, tagged
+ *    with the id of the request
+ *
+ * The connection is kept open by the client for as long as it needs it,
+ * and several requests can be in progress on it at the same time.
  *
  * None of the work performed by this class is really bound by the CPU. It
  * should be completely fine to have a large number of RequestHandlers active.
@@ -66,60 +73,92 @@ public class RequestHandler extends Thread {
 
     @Override
     public void run() {
+        // Errors that do not belong to a request go to the server log.
+        // Problems with a connection are only logged when debugging, since
+        // an error in the server log is reported to every later request.
+        Log.setLogForCurrentThread(ServerMain.getErrorLog());
+
+        List<Thread> requests = new ArrayList<>();
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+
+            SjavacProtocol.handshake(s, in, out);
+
+            Frame frame;
+            while ((frame = SjavacProtocol.readFrame(in)) != null) {
+                if (frame.type != SjavacProtocol.COMPILE)
+                    throw new IOException("Unexpected frame type: " + frame.type);
+                Frame request = frame;
+                Thread t = new Thread(() -> handleCompile(request.id, request.strings, out));
+                requests.add(t);
+                t.start();
+            }
 
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-             PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
-
-            // Set up logging for this thread. Stream back logging messages to
-            // client on the format format "level:msg".
-            Log.setLogForCurrentThread(new Log(out, out) {
-                @Override
-                protected boolean isLevelLogged(Level l) {
-                    // Make sure it is up to the client to decide whether or
-                    // not this message should be displayed.
-                    return true;
-                }
-
-                @Override
-                protected void printLogMsg(Level msgLevel, String msg) {
-                    // Follow sjavac server/client protocol: Send one line
-                    // at a time and prefix with message with "level:".
-                    Util.getLines(msg)
-                        .map(line -> msgLevel + ":" + line)
-                        .forEach(line -> super.printLogMsg(msgLevel, line));
-                }
-            });
-
-            // Read argument array
-            int n = Integer.parseInt(in.readLine());
-            String[] args = new String[n];
-            for (int i = 0; i < n; i++) {
-                args[i] = in.readLine();
+            // The client has closed its side of the connection. Let the
+            // requests in progress finish before the socket is closed.
+            for (Thread t : requests) {
+                t.join();
+            }
+        } catch (IOException ex) {
+            // The client has gone away, or does not speak this protocol.
+            // Any request in progress fails on the client side.
+            Log.debug(ex);
+        } catch (Exception ex) {
+            Log.error(ex);
+        }
+    }
+
+    private void handleCompile(int id, String[] args, DataOutputStream toClient) {
+        // Set up logging for this thread. Stream back logging messages to
+        // the client as frames, one for each message.
+        Log.setLogForCurrentThread(new Log(null, null) {
+            @Override
+            protected boolean isLevelLogged(Level l) {
+                // Make sure it is up to the client to decide whether or
+                // not this message should be displayed.
+                return true;
             }
 
+            @Override
+            protected void printLogMsg(Level msgLevel, String msg) {
+                send(toClient, new Frame(id, SjavacProtocol.LOG, msgLevel.name(), msg));
+            }
+        });
+
+        Main.Result rc = Main.Result.ERROR;
+        try {
             // If there has been any internal errors, notify client
             checkInternalErrorLog();
 
             // Perform compilation
-            Main.Result rc = sjavac.compile(args);
-
-            // Send return code back to client
-            out.println(LINE_TYPE_RC + ":" + rc.name());
+            rc = sjavac.compile(args);
 
             // Check for internal errors again.
             checkInternalErrorLog();
         } catch (Exception ex) {
-            // Not much to be done at this point. The client side request
-            // code will most likely throw an IOException and the
-            // compilation will fail.
             Log.error(ex);
         } finally {
+            // Send return code back to client
+            send(toClient, new Frame(id, SjavacProtocol.RESULT, rc.name()));
             Log.setLogForCurrentThread(null);
         }
     }
 
+    private void send(DataOutputStream out, Frame frame) {
+        synchronized (out) {
+            try {
+                SjavacProtocol.writeFrame(out, frame);
+            } catch (IOException e) {
+                // The client has gone away, nothing more to be done.
+            }
+        }
+    }
+
     private void checkInternalErrorLog() {
-        Path errorLog = ServerMain.getErrorLog().getLogDestination();
+        Path errorLog = ServerMain.getErrorLog() != null
+                ? ServerMain.getErrorLog().getLogDestination()
+                : null;
         if (errorLog != null) {
             Log.error("Server has encountered an internal error. See " + errorLog.toAbsolutePath()
                     + " for details.");
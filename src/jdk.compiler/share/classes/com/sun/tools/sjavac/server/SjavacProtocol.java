@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.sjavac.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The protocol spoken between the sjavac client and server.
+ *
+ * When a connection is opened, both sides write the line {@link #PREAMBLE},
+ * which names the version of the protocol, and check what the other side
+ * wrote. The line is not a number, so an older sjavac, which speaks a line
+ * based protocol that starts with the number of arguments, closes the
+ * connection instead of waiting for more input. After that, all data is
+ * sent as frames:
+ * <pre>
+ *     int  request id
+ *     byte frame type
+ *     int  payload length
+ *     byte payload[payload length]
+ * </pre>
+ * The client sends a {@link #COMPILE} frame, with a new request id, for
+ * each compilation. The server answers with any number of {@link #LOG}
+ * frames, and finally one {@link #RESULT} frame, with the same request id.
+ * Several requests can be outstanding on the same connection, and their
+ * frames can be interleaved.
+ *
+ * A payload is a sequence of strings, each written as an int length followed
+ * by the UTF-8 bytes of the string.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public class SjavacProtocol {
+
+    public static final int VERSION = 1;
+
+    /** The first line written by both sides of a connection. */
+    public static final String PREAMBLE = "sjavac-protocol " + VERSION;
+
+    // The time to wait for the other side's preamble, in milliseconds.
+    private static final int HANDSHAKE_TIMEOUT = 10000;
+
+    private static final int MAX_PREAMBLE = 64;
+
+    /** Client to server: the sjavac arguments. */
+    public static final byte COMPILE = 1;
+    /** Server to client: a log level and a, possibly multi-line, message. */
+    public static final byte LOG = 2;
+    /** Server to client: the name of the {@code Main.Result} of the compilation. */
+    public static final byte RESULT = 3;
+
+    // Guard against reading garbage as a huge frame.
+    private static final int MAX_PAYLOAD = 256 * 1024 * 1024;
+
+    /** A frame read from a connection. */
+    public static class Frame {
+        public final int id;
+        public final byte type;
+        public final String[] strings;
+
+        public Frame(int id, byte type, String... strings) {
+            this.id = id;
+            this.type = type;
+            this.strings = strings;
+        }
+    }
+
+    /**
+     * Write the preamble, and check that the other side wrote the same.
+     * The other side has a limited time to answer.
+     */
+    public static void handshake(Socket socket, DataInputStream in, DataOutputStream out)
+            throws IOException {
+        int timeout = socket.getSoTimeout();
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+        try {
+            out.write((PREAMBLE + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            String preamble = readPreamble(in);
+            if (!preamble.equals(PREAMBLE))
+                throw new IOException("Incompatible sjavac protocol: " + preamble);
+        } finally {
+            socket.setSoTimeout(timeout);
+        }
+    }
+
+    private static String readPreamble(DataInputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1)
+                throw new IOException("Connection closed during the handshake, "
+                                      + "the other side may be an older version of sjavac");
+            if (sb.length() == MAX_PREAMBLE)
+                throw new IOException("Incompatible sjavac protocol");
+            sb.append((char) c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write a frame. Frames written from several threads to the same stream
+     * must be serialized by the caller.
+     */
+    public static void writeFrame(DataOutputStream out, Frame frame) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream p = new DataOutputStream(payload);
+        for (String s : frame.strings) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            p.writeInt(b.length);
+            p.write(b);
+        }
+        out.writeInt(frame.id);
+        out.writeByte(frame.type);
+        out.writeInt(payload.size());
+        payload.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Read a frame, or return null if the stream ended between frames.
+     */
+    public static Frame readFrame(DataInputStream in) throws IOException {
+        int id;
+        try {
+            id = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        byte type = in.readByte();
+        int length = in.readInt();
+        if (length < 0 || length > MAX_PAYLOAD)
+            throw new IOException("Bad frame length: " + length);
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+
+        int count = 0;
+        for (int pos = 0; pos < length; count++) {
+            pos += 4 + getInt(payload, pos);
+        }
+        String[] strings = new String[count];
+        for (int i = 0, pos = 0; i < count; i++) {
+            int len = getInt(payload, pos);
+            strings[i] = new String(payload, pos + 4, len, StandardCharsets.UTF_8);
+            pos += 4 + len;
+        }
+        return new Frame(id, type, strings);
+    }
+
+    private static int getInt(byte[] b, int pos) throws IOException {
+        if (pos + 4 > b.length)
+            throw new IOException("Bad frame payload");
+        int len = ((b[pos] & 0xff) << 24) | ((b[pos + 1] & 0xff) << 16)
+                | ((b[pos + 2] & 0xff) << 8) | (b[pos + 3] & 0xff);
+        if (len < 0 || pos + 4 + len > b.length)
+            throw new IOException("Bad frame payload");
+        return len;
+    }
+}
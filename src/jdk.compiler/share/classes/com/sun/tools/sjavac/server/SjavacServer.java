@@ -58,9 +58,6 @@ import com.sun.tools.sjavac.comp.SjavacImpl;
  */
 public class SjavacServer implements Terminable {
 
-    // Prefix of line containing return code.
-    public final static String LINE_TYPE_RC = "RC";
-
     final private String portfilename;
     final private int poolsize;
     final private int keepalive;
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/*
+ * @test
+ * @summary JavacTaskImpl.reparse updates a compilation unit after an edit,
+ *          as if it had been parsed again from scratch
+ * @modules jdk.compiler/com.sun.tools.javac.api
+ *          jdk.compiler/com.sun.tools.javac.parser
+ *          jdk.compiler/com.sun.tools.javac.tree
+ *          jdk.compiler/com.sun.tools.javac.util
+ * @run main TestReparse
+ */
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.tools.javac.api.JavacTaskImpl;
+import com.sun.tools.javac.parser.Tokens.Comment;
+import com.sun.tools.javac.tree.DCTree;
+import com.sun.tools.javac.tree.DCTree.DCDocComment;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.tree.TreeInfo;
+import com.sun.tools.javac.tree.TreeScanner;
+
+public class TestReparse {
+    public static void main(String... args) throws Exception {
+        new TestReparse().run();
+    }
+
+    static final String SOURCE =
+            "package p;\n" +
+            "import java.util.List;\n" +
+            "/** Class A. */\n" +
+            "public class A {\n" +
+            "    int a, b[];\n" +
+            "    static { System.out.println(\"init\"); }\n" +
+            "    /** Method m. */\n" +
+            "    int m(int x) {\n" +
+            "        return 1;\n" +
+            "    }\n" +
+            "    /**\n" +
+            "     * Method n.\n" +
+            "     * @deprecated\n" +
+            "     */\n" +
+            "    void n() { Runnable r = () -> { }; }\n" +
+            "    class Inner {\n" +
+            "        int f;\n" +
+            "        /** Method k. */\n" +
+            "        void k() { }\n" +
+            "    }\n" +
+            "    interface I { default void d() { } }\n" +
+            "    /** Method last. */\n" +
+            "    List<String> last() { return null; }\n" +
+            "}\n" +
+            "class B { void b() { int i; } }\n";
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    String content = SOURCE;
+    JavaFileObject file = new SimpleJavaFileObject(URI.create("mem:///p/A.java"), JavaFileObject.Kind.SOURCE) {
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    };
+    JavacTaskImpl task;
+    JCCompilationUnit unit;
+    int errors;
+
+    void run() throws Exception {
+        task = (JavacTaskImpl) compiler.getTask(null, null, d -> { }, null, null, List.of(file));
+        unit = (JCCompilationUnit) task.parse().iterator().next();
+
+        edit("return 1;", "return 100 + x;", true);
+        edit("println(\"init\")", "println(\"initialized\" + 1)", true);
+        edit("() -> { }", "() -> { n(); }", true);
+        edit("void k() { }", "void k() { k(); }", true);
+        edit("void d() { }", "void d() { d(); d(); }", true);
+        edit("return null;", "return List.of(\"s\");", true);
+        edit("return 100 + x;", "return x;", true);
+        edit("int i;", "int j = 1;", true);
+        // the edit is in a field of a nested class: the class is parsed again
+        edit("int f;", "int f, g;", true);
+        // the edit is not within a method or member class
+        edit("int a, b[];", "int a;", false);
+        edit("import java.util.List;", "import java.util.*;", false);
+        // a syntax error is found by parsing everything again
+        edit("return x;\n    }", "return x;\n", false);
+        if (errors == 0)
+            throw new Exception("syntax error not reported");
+        edit("return x;\n", "return x;\n    }", false);
+        edit("return x;", "return x + 1;", true);
+        edit("/** Method m. */", "/** Method m, edited. */", false);
+    }
+
+    void edit(String oldText, String newText, boolean expectInPlace) throws Exception {
+        int start = content.indexOf(oldText);
+        if (start == -1 || content.indexOf(oldText, start + 1) != -1)
+            throw new Exception("text not found or not unique: " + oldText);
+        content = content.substring(0, start) + newText + content.substring(start + oldText.length());
+        CompilationUnitTree result =
+                task.reparse(unit, content, start, start + oldText.length(), start + newText.length());
+        if ((result == unit) != expectInPlace)
+            throw new Exception("unexpected result for " + newText + ": in place: " + (result == unit));
+        unit = (JCCompilationUnit) result;
+
+        JavacTaskImpl fresh = (JavacTaskImpl) compiler.getTask(null, null, d -> errors++, null, null, List.of(file));
+        JCCompilationUnit expected = (JCCompilationUnit) fresh.parse().iterator().next();
+        List<String> found = describe(unit);
+        List<String> expect = describe(expected);
+        if (!found.equals(expect)) {
+            for (int i = 0; i < Math.min(found.size(), expect.size()); i++) {
+                if (!found.get(i).equals(expect.get(i))) {
+                    throw new Exception("trees differ after edit " + newText + ":\n" +
+                            found.get(i) + "\nexpected:\n" + expect.get(i));
+                }
+            }
+            throw new Exception("trees differ after edit " + newText);
+        }
+    }
+
+    /** Describe the trees of a compilation unit, with their positions and doc comments. */
+    List<String> describe(JCCompilationUnit toplevel) {
+        List<String> result = new ArrayList<>();
+        result.add(toplevel.toString());
+        new TreeScanner() {
+            Set<JCTree> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            @Override
+            public void scan(JCTree tree) {
+                if (tree == null || !seen.add(tree))
+                    return;
+                StringBuilder sb = new StringBuilder();
+                sb.append(tree.getTag()).append(' ')
+                        .append(TreeInfo.getStartPos(tree)).append(' ')
+                        .append(tree.pos).append(' ')
+                        .append(TreeInfo.getEndPos(tree, toplevel.endPositions)).append(' ')
+                        .append(toplevel.lineMap.getLineNumber(tree.pos)).append(' ')
+                        .append(TreeInfo.flags(tree));
+                if (tree instanceof JCTree.JCBlock)
+                    sb.append(" endpos ").append(((JCTree.JCBlock) tree).endpos);
+                Comment c = toplevel.docComments.getComment(tree);
+                if (c != null) {
+                    DCDocComment dc = toplevel.docComments.getCommentTree(tree);
+                    sb.append(" doc ").append(c.getText())
+                            .append(' ').append(c.getSourcePos(0))
+                            .append(' ').append(dc.getSourcePosition(dc))
+                            .append(' ').append(((DCTree) dc.getFirstSentence().get(0)).getSourcePosition(dc));
+                }
+                result.add(sb.toString());
+                super.scan(tree);
+            }
+        }.scan(toplevel);
+        return result;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/*
+ * @test
+ * @summary stress test for worklist-based incorporation (-XDworklistIncorporation):
+ *          deeply nested generic method calls must be compiled as they are by the
+ *          default incorporation loop
+ * @library /tools/lib
+ * @modules jdk.compiler/com.sun.tools.javac.api
+ *          jdk.compiler/com.sun.tools.javac.main
+ * @build toolbox.ToolBox toolbox.JavacTask toolbox.CompilationComparison
+ * @run main IncorporationWorklistTest
+ */
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import toolbox.CompilationComparison;
+import toolbox.Task;
+import toolbox.ToolBox;
+
+public class IncorporationWorklistTest {
+    public static void main(String... args) throws Exception {
+        new IncorporationWorklistTest().run();
+    }
+
+    static final int DEPTH = 20;
+
+    ToolBox tb = new ToolBox();
+    CompilationComparison cc = new CompilationComparison(tb);
+
+    void run() throws Exception {
+        Path src = Paths.get("src");
+        tb.writeJavaFiles(src, source("Deep", "Object"));
+        Path plain = cc.compile(src, "plain");
+        Path worklist = cc.compile(src, "worklist", "-XDworklistIncorporation");
+        cc.checkSameClassFiles(plain, worklist);
+
+        Path bad = Paths.get("bad");
+        tb.writeJavaFiles(bad, source("Bad", "String"));
+        List<String> expected = diags(bad, "bad-plain");
+        List<String> found = diags(bad, "bad-worklist", "-XDworklistIncorporation");
+        if (!found.equals(expected))
+            throw new Exception("diagnostics differ: " + found + ", expected " + expected);
+    }
+
+    /**
+     * A class with deeply nested generic method calls, and a fluent chain of
+     * generic calls taking lambdas, assigned to a variable of the given type.
+     */
+    String source(String name, String type) {
+        String nested = "1";
+        String chain = "Chain.of(\"\")";
+        for (int i = 0; i < DEPTH; i++) {
+            nested = "pair(id(" + nested + "), Arrays.asList(" + i + ", id(" + i + ")))";
+            chain += ".map(x" + i + " -> pair(x" + i + ", " + i + "))";
+        }
+        return "import java.util.*;\n" +
+               "import java.util.function.*;\n" +
+               "class " + name + " {\n" +
+               "    static <A> A id(A a) { return a; }\n" +
+               "    static <A, B extends Comparable<? super B>> Map.Entry<A, List<B>> pair(A a, List<B> b) {\n" +
+               "        return null;\n" +
+               "    }\n" +
+               "    static <A, B> Map.Entry<A, B> pair(A a, B b) { return null; }\n" +
+               "    interface Chain<T> {\n" +
+               "        static <Z> Chain<Z> of(Z z) { return null; }\n" +
+               "        <R> Chain<R> map(Function<? super T, ? extends R> f);\n" +
+               "    }\n" +
+               "    " + type + " nested = " + nested + ";\n" +
+               "    " + type + " chain = " + chain + ";\n" +
+               "}";
+    }
+
+    /**
+     * Returns the positions and keys of the diagnostics reported by javac; the
+     * arguments are left out, as the order in which inference variables are listed
+     * depends on identity hash codes.
+     */
+    List<String> diags(Path src, String name, String... options) throws Exception {
+        return cc.compileFail(src, name, options)
+                .getOutputLines(Task.OutputKind.DIRECT)
+                .stream()
+                .map(l -> DIAG.matcher(l))
+                .filter(Matcher::find)
+                .map(Matcher::group)
+                .collect(Collectors.toList());
+    }
+
+    static final Pattern DIAG = Pattern.compile("^\\S+:[0-9]+:[0-9]+: compiler\\.[a-z.]+");
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/*
+ * @test
+ * @summary class files written in the background with -XDparallelCompile
+ *          are identical to those written by the compiler thread
+ * @library /tools/lib
+ * @modules jdk.compiler/com.sun.tools.javac.api
+ *          jdk.compiler/com.sun.tools.javac.main
+ * @build toolbox.ToolBox toolbox.JavacTask toolbox.CompilationComparison
+ * @run main ParallelClassWriterTest
+ */
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+import toolbox.CompilationComparison;
+import toolbox.Task;
+import toolbox.ToolBox;
+
+public class ParallelClassWriterTest {
+    public static void main(String... args) throws Exception {
+        new ParallelClassWriterTest().run();
+    }
+
+    ToolBox tb = new ToolBox();
+    CompilationComparison cc = new CompilationComparison(tb);
+
+    void run() throws Exception {
+        Path src = Paths.get("src");
+        for (int i = 0; i < 50; i++) {
+            tb.writeJavaFiles(src,
+                    "package p" + (i % 5) + ";\n" +
+                    "public class C" + i + " {\n" +
+                    "    class Inner { int f = " + i + "; }\n" +
+                    "    Runnable r = () -> System.out.println(\"C" + i + "\");\n" +
+                    "    String m(java.util.List<String> l) { return l.get(" + i + "); }\n" +
+                    "}");
+        }
+
+        Path seq = cc.compile(src, "seq");
+        Path par = cc.compile(src, "par", "-XDparallelCompile=4");
+        int count = cc.checkSameClassFiles(seq, par);
+        if (count != 100)
+            throw new Exception("unexpected number of class files: " + count);
+
+        checkWrittenWhenGenerated(src);
+        checkWriteErrors(src);
+    }
+
+    // Listeners may read the class file as soon as it has been generated.
+    void checkWrittenWhenGenerated(Path src) throws Exception {
+        Path classes = Paths.get("listener");
+        tb.createDirectories(classes);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> missing = new ArrayList<>();
+        try (StandardJavaFileManager fm = compiler.getStandardFileManager(null, null, null)) {
+            com.sun.source.util.JavacTask task = (com.sun.source.util.JavacTask)
+                    compiler.getTask(null, fm, null,
+                                     Arrays.asList("-d", classes.toString(), "-XDparallelCompile=4"),
+                                     null, fm.getJavaFileObjects(tb.findJavaFiles(src)));
+            task.addTaskListener(new TaskListener() {
+                @Override
+                public void finished(TaskEvent e) {
+                    if (e.getKind() != TaskEvent.Kind.GENERATE)
+                        return;
+                    String name = task.getElements().getBinaryName(e.getTypeElement()).toString();
+                    if (!Files.exists(classes.resolve(name.replace('.', '/') + ".class")))
+                        missing.add(name);
+                }
+            });
+            if (!task.call())
+                throw new Exception("compilation failed");
+        }
+        if (!missing.isEmpty())
+            throw new Exception("class files not written when generated: " + missing);
+    }
+
+    // An error writing a class file is reported as when the compiler
+    // thread writes it, and no class file is written after it.
+    void checkWriteErrors(Path src) throws Exception {
+        List<String> seq = compileWithWriteErrors(src, "seqerr");
+        List<String> par = compileWithWriteErrors(src, "parerr", "-XDparallelCompile=4");
+        if (!seq.equals(par))
+            throw new Exception("diagnostics differ: " + seq + ", " + par);
+        cc.checkSameClassFiles(Paths.get("seqerr"), Paths.get("parerr"));
+    }
+
+    List<String> compileWithWriteErrors(Path src, String name, String... options) throws Exception {
+        // no class file can be written to package p3
+        tb.writeFile(Paths.get(name, "p3"), "");
+        return cc.compileFail(src, name, options)
+                .getOutputLines(Task.OutputKind.DIRECT);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/*
+ * @test
+ * @summary -XDargumentCacheStats reports the argument cache hits, misses and
+ *          overload checks of each compilation unit
+ * @library /tools/lib
+ * @modules jdk.compiler/com.sun.tools.javac.api
+ *          jdk.compiler/com.sun.tools.javac.main
+ * @build toolbox.ToolBox toolbox.JavacTask
+ * @run main ArgumentCacheStatsTest
+ */
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import toolbox.JavacTask;
+import toolbox.Task;
+import toolbox.ToolBox;
+
+public class ArgumentCacheStatsTest {
+    public static void main(String... args) throws Exception {
+        new ArgumentCacheStatsTest().run();
+    }
+
+    ToolBox tb = new ToolBox();
+
+    void run() throws Exception {
+        Path src = Paths.get("src");
+        // The generic calls are poly expressions, checked against both m's.
+        tb.writeJavaFiles(src,
+                "class Overloads {\n" +
+                "    void m(Object o) { }\n" +
+                "    void m(String s) { }\n" +
+                "    <Z> Z id(Z z) { return z; }\n" +
+                "    void test() {\n" +
+                "        m(id(\"a\"));\n" +
+                "        m(id(id(\"b\")));\n" +
+                "        m(\"c\");\n" +
+                "    }\n" +
+                "}",
+                "class Plain {\n" +
+                "    void m(String s) { }\n" +
+                "    void test() {\n" +
+                "        m(\"c\");\n" +
+                "    }\n" +
+                "}");
+
+        List<String> out = compile(src, "-XDargumentCacheStats");
+        check(out, "Overloads.java: 1 hits, 3 misses, 7 overload checks");
+        // units without poly arguments do not use the cache
+        if (out.size() != 1)
+            throw new Exception("expected statistics for Overloads.java only: " + out);
+
+        if (compile(src).stream().anyMatch(l -> l.contains("argument cache")))
+            throw new Exception("no statistics expected without -XDargumentCacheStats");
+    }
+
+    List<String> compile(Path src, String... options) throws Exception {
+        Path classes = Paths.get("classes");
+        tb.createDirectories(classes);
+        return new JavacTask(tb)
+                .outdir(classes)
+                .options(options)
+                .files(tb.findJavaFiles(src))
+                .run()
+                .writeAll()
+                .getOutputLines(Task.OutputKind.DIRECT);
+    }
+
+    void check(List<String> out, String expect) throws Exception {
+        for (String line : out) {
+            if (line.startsWith("[argument cache ") && line.endsWith(expect + "]"))
+                return;
+        }
+        throw new Exception("expected '" + expect + "' in " + out);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * @test
+ * @summary Identifiers scanned straight from the input buffer have the same
+ *          names and positions as those built character by character.
+ * @modules jdk.compiler/com.sun.tools.javac.parser
+ *          jdk.compiler/com.sun.tools.javac.util
+ */
+
+import java.io.IOException;
+import java.net.URI;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+import com.sun.tools.javac.parser.JavaTokenizer;
+import com.sun.tools.javac.parser.ScannerFactory;
+import com.sun.tools.javac.parser.Tokens.Token;
+import com.sun.tools.javac.parser.Tokens.TokenKind;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Log;
+
+public class AsciiIdentifierTest {
+    public static void main(String... args) throws Exception {
+        new AsciiIdentifierTest().run();
+    }
+
+    void run() throws Exception {
+        check("abc+d", "abc", 0, 3);
+        check("_$x1.y", "_$x1", 0, 4);
+        check("abc", "abc", 0, 3);
+        check("ab\\u0063 d", "abc", 0, 8);
+        check("ab\\u0020d", "ab", 0, 7);
+        check("ab\u0001c d", "abc", 0, 4);
+        check("ab\u00e9c d", "ab\u00e9c", 0, 4);
+        check("ab\u001Acd d", "abcd", 0, 5);
+        check("ab\\\\ d", "ab", 0, 2);
+        check("\\u0061bc d", "abc", 5, 8);
+    }
+
+    void check(String input, String expectedName, int expectedPos, int expectedEndPos) throws Exception {
+        Context ctx = new Context();
+        Log log = Log.instance(ctx);
+        log.useSource(new SimpleJavaFileObject(new URI("mem://Test.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+                return input;
+            }
+        });
+        char[] inputArr = input.toCharArray();
+        JavaTokenizer tokenizer = new JavaTokenizer(ScannerFactory.instance(ctx), inputArr, inputArr.length) {
+        };
+        Token token = tokenizer.readToken();
+        if (token.kind != TokenKind.IDENTIFIER)
+            throw new AssertionError(input + ": unexpected token kind: " + token.kind);
+        if (!token.name().toString().equals(expectedName))
+            throw new AssertionError(input + ": unexpected name: " + token.name());
+        if (token.pos != expectedPos || token.endPos != expectedEndPos)
+            throw new AssertionError(input + ": unexpected position: " + token.pos + "-" + token.endPos);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/*
+ * @test
+ * @summary source files read ahead of parsing with -XDparallelCompile give
+ *          the same diagnostics and class files as when read by the compiler thread
+ * @library /tools/lib
+ * @modules jdk.compiler/com.sun.tools.javac.api
+ *          jdk.compiler/com.sun.tools.javac.main
+ * @build toolbox.ToolBox toolbox.JavacTask toolbox.CompilationComparison
+ * @run main ParallelSourceReadTest
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import toolbox.CompilationComparison;
+import toolbox.Task;
+import toolbox.ToolBox;
+
+public class ParallelSourceReadTest {
+    public static void main(String... args) throws Exception {
+        new ParallelSourceReadTest().run();
+    }
+
+    ToolBox tb = new ToolBox();
+    CompilationComparison cc = new CompilationComparison(tb, "-encoding", "UTF-8");
+
+    void run() throws Exception {
+        Path src = Paths.get("src");
+        for (int i = 0; i < 20; i++) {
+            tb.writeJavaFiles(src,
+                    "package p;\n" +
+                    "/** Class C" + i + " \u00e9t\u00e9. */\n" +
+                    "public class C" + i + " {\n" +
+                    "    String s = \"\u00e9t\u00e9" + i + "\";\n" +
+                    "}");
+        }
+
+        Path seq = cc.compile(src, "seq");
+        Path par = cc.compile(src, "par", "-XDparallelCompile=4");
+        cc.checkSameClassFiles(seq, par);
+
+        // a file with bytes that are not valid UTF-8 is reported on the compiler thread
+        Path bad = Paths.get("bad");
+        tb.writeJavaFiles(bad, "package q; class A { String s = \"a\"; }");
+        Files.write(bad.resolve("q").resolve("B.java"),
+                "package q; class B { String s = \"\u00ff\"; int i = \"\"; }"
+                        .getBytes(StandardCharsets.ISO_8859_1));
+        List<String> expected = diags(bad, "bad-seq");
+        List<String> found = diags(bad, "bad-par", "-XDparallelCompile=4");
+        if (!found.equals(expected))
+            throw new Exception("diagnostics differ: " + found + ", expected " + expected);
+        if (!expected.toString().contains("(0xFF)"))
+            throw new Exception("encoding error not reported: " + expected);
+    }
+
+    List<String> diags(Path src, String name, String... options) throws Exception {
+        Task.Result result = cc.compileFail(src, name, options);
+        // encoding errors are reported by the file manager, on the standard error stream
+        List<String> lines = new ArrayList<>(result.getOutputLines(Task.OutputKind.STDERR));
+        lines.addAll(result.getOutputLines(Task.OutputKind.DIRECT));
+        return lines;
+    }
+}
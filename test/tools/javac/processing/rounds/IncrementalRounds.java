@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/*
+ * @test
+ * @summary With -XDincrementalRounds, the last round of annotation processing
+ *          reuses the trees and symbols entered for the previous round, when
+ *          that round generated and reported nothing
+ * @modules jdk.compiler
+ * @clean *
+ * @run main IncrementalRounds
+ */
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import javax.annotation.processing.*;
+import javax.lang.model.*;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.*;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+@SupportedAnnotationTypes("*")
+public class IncrementalRounds extends AbstractProcessor {
+    public static void main(String... args) throws Exception {
+        new IncrementalRounds().run();
+    }
+
+    void run() throws Exception {
+        Path src = Paths.get("src");
+        Files.createDirectories(src);
+        Files.write(src.resolve("Client.java"),
+                Arrays.asList("class Client { Gen gen; Gen get() { return gen; } }"));
+
+        String plain = compile(src, "plain");
+        String incremental = compile(src, "incremental", "-XDincrementalRounds");
+
+        // the source files are entered before rounds 1, 2 and 3, and for the final compilation
+        if (plain.contains("reused") || !plain.endsWith("7 enter events\n"))
+            throw new Exception("unexpected output: " + plain);
+        if (!incremental.contains("[processing round 3: reused previous round, ")
+                || !incremental.endsWith("5 enter events\n"))
+            throw new Exception("unexpected output: " + incremental);
+
+        for (String name : new String[] { "Client.class", "Gen.class" }) {
+            if (!Arrays.equals(Files.readAllBytes(Paths.get("plain", name)),
+                               Files.readAllBytes(Paths.get("incremental", name))))
+                throw new Exception("class files differ: " + name);
+        }
+    }
+
+    String compile(Path src, String out, String... extraOptions) throws Exception {
+        Files.createDirectories(Paths.get(out));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StringWriter output = new StringWriter();
+        int[] enterEvents = new int[1];
+        try (StandardJavaFileManager fm = compiler.getStandardFileManager(null, null, null)) {
+            List<String> options = new ArrayList<>(Arrays.asList(
+                    "-processor", "IncrementalRounds",
+                    "-processorpath", System.getProperty("test.classes", "."),
+                    "-XDprocessingRoundStats",
+                    "-d", out));
+            options.addAll(Arrays.asList(extraOptions));
+            JavacTask task = (JavacTask) compiler.getTask(output, fm, null, options, null,
+                    fm.getJavaFileObjects(src.resolve("Client.java").toFile()));
+            task.addTaskListener(new TaskListener() {
+                @Override
+                public void started(TaskEvent e) {
+                    if (e.getKind() == TaskEvent.Kind.ENTER)
+                        enterEvents[0]++;
+                }
+                @Override
+                public void finished(TaskEvent e) { }
+            });
+            if (!task.call())
+                throw new Exception("compilation failed: " + output);
+        }
+        System.err.println(output);
+        return output.toString().replace(System.lineSeparator(), "\n")
+                + enterEvents[0] + " enter events\n";
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+                           RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            // the symbols seen in the last round are complete and correct
+            TypeElement client = processingEnv.getElementUtils().getTypeElement("Client");
+            for (VariableElement field : ElementFilter.fieldsIn(client.getEnclosedElements())) {
+                if (field.asType().getKind() != TypeKind.DECLARED)
+                    throw new IllegalStateException("unexpected type: " + field.asType());
+            }
+        } else if (processingEnv.getElementUtils().getTypeElement("Gen") == null) {
+            try (Writer out = processingEnv.getFiler().createSourceFile("Gen").openWriter()) {
+                out.write("class Gen { }");
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.toString());
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latest();
+    }
+}
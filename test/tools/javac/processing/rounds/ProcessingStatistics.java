@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/*
+ * @test
+ * @summary -XDprocessingStats writes the time and memory used by each round
+ *          and each processor, and by the writes to the files each processor
+ *          created
+ * @modules jdk.compiler
+ * @clean *
+ * @run main ProcessingStatistics
+ */
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import javax.annotation.processing.*;
+import javax.lang.model.*;
+import javax.lang.model.element.*;
+import javax.tools.*;
+
+@SupportedAnnotationTypes("*")
+public class ProcessingStatistics extends AbstractProcessor {
+    public static void main(String... args) throws Exception {
+        new ProcessingStatistics().run();
+    }
+
+    void run() throws Exception {
+        Path src = Paths.get("src");
+        Files.createDirectories(src);
+        Files.write(src.resolve("Client.java"),
+                Arrays.asList("class Client { Gen gen; }"));
+        Path stats = Paths.get("stats.json");
+        Files.createDirectories(Paths.get("classes"));
+
+        compile(src, "-XDprocessingStats=" + stats);
+        String report = new String(Files.readAllBytes(stats), "UTF-8");
+        System.err.println(report);
+        // the processor is called in each of the three rounds, and creates Gen in the first
+        for (String expect : new String[] {
+                "\"round\": 1,", "\"round\": 2,", "\"round\": 3,",
+                "\"processor\": \"ProcessingStatistics\",",
+                "\"calls\": 3,", "\"result\": false,",
+                "\"wallNanos\": ", "\"cpuNanos\": ", "\"allocatedBytes\": ",
+                "Gen.java\", \"wallNanos\": " }) {
+            if (!report.contains(expect))
+                throw new Exception("expected " + expect + " in report");
+        }
+
+        // the bare option names no file, and writes none
+        String output = compile(src, "-XDprocessingStats");
+        if (!output.contains("-XDprocessingStats requires a file"))
+            throw new Exception("expected an error for the bare option: " + output);
+        if (Files.exists(Paths.get("processingStats")))
+            throw new Exception("no report expected for the bare option");
+    }
+
+    String compile(Path src, String statsOption) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StringWriter output = new StringWriter();
+        try (StandardJavaFileManager fm = compiler.getStandardFileManager(null, null, null)) {
+            List<String> options = Arrays.asList(
+                    "-processor", "ProcessingStatistics",
+                    "-processorpath", System.getProperty("test.classes", "."),
+                    statsOption,
+                    "-d", "classes");
+            JavaCompiler.CompilationTask task = compiler.getTask(output, fm, null, options, null,
+                    fm.getJavaFileObjects(src.resolve("Client.java").toFile()));
+            if (!task.call())
+                throw new Exception("compilation failed: " + output);
+        }
+        return output.toString();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+                           RoundEnvironment roundEnv) {
+        if (!roundEnv.processingOver()
+                && processingEnv.getElementUtils().getTypeElement("Gen") == null) {
+            try (Writer out = processingEnv.getFiler().createSourceFile("Gen").openWriter()) {
+                out.write("class Gen { }");
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.toString());
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latest();
+    }
+}
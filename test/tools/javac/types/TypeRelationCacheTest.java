@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/*
+ * @test
+ * @summary the type relation cache enabled by -XDtypeRelationCache does not
+ *          change the diagnostics or class files generated by javac
+ * @library /tools/lib
+ * @modules jdk.compiler/com.sun.tools.javac.api
+ *          jdk.compiler/com.sun.tools.javac.main
+ * @build toolbox.ToolBox toolbox.JavacTask
+ * @run main TypeRelationCacheTest
+ */
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import toolbox.JavacTask;
+import toolbox.Task;
+import toolbox.ToolBox;
+
+public class TypeRelationCacheTest {
+    public static void main(String... args) throws Exception {
+        new TypeRelationCacheTest().run();
+    }
+
+    ToolBox tb = new ToolBox();
+
+    void run() throws Exception {
+        Path src = Paths.get("src");
+        tb.writeJavaFiles(src,
+                "package p;\n" +
+                "import java.util.*;\n" +
+                "public class Good<E extends Comparable<E>> {\n" +
+                "    List<? extends Number> nums = new ArrayList<Integer>();\n" +
+                "    Map<String, List<E>> map = new HashMap<>();\n" +
+                "    <T extends Enum<T>> EnumSet<T> set(Class<T> c) { return EnumSet.noneOf(c); }\n" +
+                "    Object[] arr = new String[0];\n" +
+                "    Comparable<? super E> cmp(E e) { return e; }\n" +
+                "}");
+        Path bad = Paths.get("bad");
+        tb.writeJavaFiles(bad,
+                "package q;\n" +
+                "import java.util.*;\n" +
+                "class A extends B { }\n" +
+                "class B extends A { }\n" +
+                "class C {\n" +
+                "    List<String> l = new ArrayList<Integer>();\n" +
+                "    A a = new B();\n" +
+                "    Runnable r = \"\";\n" +
+                "}");
+
+        Path seq = compile(src, "plain");
+        Path cached = compile(src, "cached", "-XDtypeRelationCache=8");
+        for (Path f : tb.findFiles(".class", seq)) {
+            Path g = cached.resolve(seq.relativize(f));
+            if (!Arrays.equals(Files.readAllBytes(f), Files.readAllBytes(g)))
+                throw new Exception("class files differ: " + f + ", " + g);
+        }
+
+        List<String> expected = diags(bad, "bad-plain");
+        List<String> found = diags(bad, "bad-cached", "-XDtypeRelationCache=8");
+        if (!found.equals(expected))
+            throw new Exception("diagnostics differ: " + found + ", expected " + expected);
+    }
+
+    Path compile(Path src, String name, String... options) throws Exception {
+        Path classes = Paths.get(name);
+        tb.createDirectories(classes);
+        new JavacTask(tb)
+                .outdir(classes)
+                .options(options)
+                .files(tb.findJavaFiles(src))
+                .run()
+                .writeAll();
+        return classes;
+    }
+
+    List<String> diags(Path src, String name, String... options) throws Exception {
+        Path classes = Paths.get(name);
+        tb.createDirectories(classes);
+        List<String> opts = new ArrayList<>(Arrays.asList(options));
+        opts.add("-XDrawDiagnostics");
+        return new JavacTask(tb)
+                .outdir(classes)
+                .options(opts.toArray(new String[0]))
+                .files(tb.findJavaFiles(src))
+                .run(Task.Expect.FAIL)
+                .writeAll()
+                .getOutputLines(Task.OutputKind.DIRECT)
+                .stream()
+                .filter(l -> !l.startsWith("[type relation cache:"))
+                .collect(Collectors.toList());
+    }
+}
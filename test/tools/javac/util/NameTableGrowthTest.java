@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/**
+ * @test
+ * @summary SharedNameTable keeps names unique and stable while its hash table grows
+ * @modules jdk.compiler/com.sun.tools.javac.util
+ * @run main NameTableGrowthTest
+ */
+
+import java.nio.charset.StandardCharsets;
+
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Name;
+import com.sun.tools.javac.util.Names;
+import com.sun.tools.javac.util.SharedNameTable;
+
+public class NameTableGrowthTest {
+    public static void main(String... args) throws Exception {
+        new NameTableGrowthTest().run();
+    }
+
+    static final int COUNT = 10000;
+
+    void run() throws Exception {
+        Names names = Names.instance(new Context());
+        // start with a tiny hash table, so that it is grown many times
+        SharedNameTable table = new SharedNameTable(names, 2, 16);
+
+        Name[] entered = new Name[COUNT];
+        int[] hashCodes = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            entered[i] = table.fromString(nameString(i));
+            hashCodes[i] = entered[i].hashCode();
+        }
+
+        for (int i = 0; i < COUNT; i++) {
+            String s = nameString(i);
+            byte[] utf = s.getBytes(StandardCharsets.UTF_8);
+            check(table.fromString(s), entered[i], s);
+            check(table.fromChars(s.toCharArray(), 0, s.length()), entered[i], s);
+            check(table.fromUtf(utf, 0, utf.length), entered[i], s);
+            if (!entered[i].toString().equals(s))
+                throw new Exception("wrong contents: " + entered[i] + ", expected " + s);
+            if (entered[i].hashCode() != hashCodes[i])
+                throw new Exception("hash code changed for " + s);
+        }
+
+        if (table.fromString("") != table.fromString(""))
+            throw new Exception("empty name not unique");
+    }
+
+    void check(Name found, Name expect, String s) throws Exception {
+        if (found != expect)
+            throw new Exception("name not unique: " + s);
+    }
+
+    String nameString(int i) {
+        return (i % 3 == 0 ? "a" : i % 3 == 1 ? "java.lang.T" : "\u00e9t\u00e9") + i;
+    }
+}
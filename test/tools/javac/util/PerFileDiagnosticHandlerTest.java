@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+/*
+ * @test
+ * @summary Unit test for Log.PerFileDiagnosticHandler: diagnostics reported
+ *          from several threads are reported once each, file by file
+ * @modules jdk.compiler/com.sun.tools.javac.util
+ * @run main PerFileDiagnosticHandlerTest
+ */
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.DiagnosticSource;
+import com.sun.tools.javac.util.JCDiagnostic;
+import com.sun.tools.javac.util.JCDiagnostic.SimpleDiagnosticPosition;
+import com.sun.tools.javac.util.Log;
+import com.sun.tools.javac.util.Options;
+
+public class PerFileDiagnosticHandlerTest {
+    public static void main(String... args) throws Exception {
+        new PerFileDiagnosticHandlerTest().run();
+    }
+
+    static final int FILES = 8;
+    static final String TEXT = "class A {\n  int i;\n  int j;\n}\n";
+
+    void run() throws Exception {
+        Context context = new Context();
+        Options.instance(context).put("rawDiagnostics", "true");
+        Log log = Log.instance(context);
+        StringWriter out = new StringWriter();
+        log.setWriters(new PrintWriter(out, true));
+        JCDiagnostic.Factory diags = JCDiagnostic.Factory.instance(context);
+
+        List<JavaFileObject> files = new ArrayList<>();
+        for (int i = 0; i < FILES; i++)
+            files.add(new StringFileObject("F" + i + ".java"));
+
+        Log.PerFileDiagnosticHandler handler = new Log.PerFileDiagnosticHandler(log);
+        List<Thread> threads = new ArrayList<>();
+        for (JavaFileObject file : files) {
+            Thread t = new Thread(() -> {
+                DiagnosticSource source = new DiagnosticSource(file, log);
+                for (int pos : new int[] { 14, 23, 14 }) {
+                    log.report(diags.error(null, source,
+                            new SimpleDiagnosticPosition(pos), "not.stmt"));
+                }
+            });
+            threads.add(t);
+        }
+        // start the threads in reverse order, to report the last files first
+        for (int i = FILES - 1; i >= 0; i--)
+            threads.get(i).start();
+        for (Thread t : threads)
+            t.join();
+        log.report(diags.error(null, null, null, "not.stmt"));
+
+        if (!out.toString().isEmpty())
+            throw new Exception("diagnostics reported before flush: " + out);
+
+        // give only the first half of the files, in reverse order: the
+        // diagnostics for the others follow, sorted by file name
+        List<JavaFileObject> order = new ArrayList<>(files.subList(0, FILES / 2));
+        Collections.reverse(order);
+        handler.reportDeferredDiagnostics(order);
+        log.popDiagnosticHandler(handler);
+
+        order.addAll(files.subList(FILES / 2, FILES));
+        List<String> expected = new ArrayList<>();
+        for (JavaFileObject file : order) {
+            expected.add(file.getName() + ":2:5: compiler.err.not.stmt");
+            expected.add(file.getName() + ":3:5: compiler.err.not.stmt");
+        }
+        expected.add("- compiler.err.not.stmt");
+
+        List<String> found = Arrays.asList(out.toString().split("\\R"));
+        if (!found.equals(expected))
+            throw new Exception("unexpected output: " + found + ", expected: " + expected);
+        if (log.nerrors != expected.size())
+            throw new Exception("unexpected error count: " + log.nerrors);
+    }
+
+    static class StringFileObject extends SimpleJavaFileObject {
+        StringFileObject(String name) {
+            super(URI.create(name), JavaFileObject.Kind.SOURCE);
+        }
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return TEXT;
+        }
+    }
+}
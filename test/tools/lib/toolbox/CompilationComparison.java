@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package toolbox;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiles the same sources with different options, each time into its own
+ * output directory, so that the results can be compared.
+ */
+public class CompilationComparison {
+
+    private final ToolBox tb;
+    private final List<String> options;
+
+    /**
+     * Creates a comparison.
+     * @param tb the ToolBox used to run javac
+     * @param options the options given to every compilation
+     */
+    public CompilationComparison(ToolBox tb, String... options) {
+        this.tb = tb;
+        this.options = Arrays.asList(options);
+    }
+
+    /**
+     * Compiles sources that are expected to compile without errors.
+     * @param src the directory containing the sources
+     * @param outdir the output directory, which is created if needed
+     * @param options additional options for this compilation
+     * @return the output directory
+     * @throws IOException if an error occurred while finding the sources
+     */
+    public Path compile(Path src, String outdir, String... options) throws IOException {
+        Path classes = Paths.get(outdir);
+        tb.createDirectories(classes);
+        new JavacTask(tb)
+                .outdir(classes)
+                .options(options(options))
+                .files(tb.findJavaFiles(src))
+                .run()
+                .writeAll();
+        return classes;
+    }
+
+    /**
+     * Compiles sources that are expected to fail, with -XDrawDiagnostics.
+     * @param src the directory containing the sources
+     * @param outdir the output directory, which is created if needed
+     * @param options additional options for this compilation
+     * @return the result of the compilation
+     * @throws IOException if an error occurred while finding the sources
+     */
+    public Task.Result compileFail(Path src, String outdir, String... options) throws IOException {
+        Path classes = Paths.get(outdir);
+        tb.createDirectories(classes);
+        List<String> opts = options(options);
+        opts.add("-XDrawDiagnostics");
+        return new JavacTask(tb)
+                .outdir(classes)
+                .options(opts)
+                .files(tb.findJavaFiles(src))
+                .run(Task.Expect.FAIL)
+                .writeAll();
+    }
+
+    /**
+     * Checks that two output directories contain the same class files,
+     * with the same content.
+     * @param expected the first output directory
+     * @param found the second output directory
+     * @return the number of class files
+     * @throws IOException if an error occurred while reading the class files
+     * @throws Error if the class files differ
+     */
+    public int checkSameClassFiles(Path expected, Path found) throws IOException {
+        Path[] files = tb.findFiles(".class", expected);
+        for (Path f : files) {
+            Path g = found.resolve(expected.relativize(f));
+            if (!Files.exists(g) || !Arrays.equals(Files.readAllBytes(f), Files.readAllBytes(g)))
+                throw new Error("class files differ: " + f + ", " + g);
+        }
+        if (tb.findFiles(".class", found).length != files.length)
+            throw new Error("different class files in " + expected + " and " + found);
+        return files.length;
+    }
+
+    private List<String> options(String... extra) {
+        List<String> opts = new ArrayList<>(options);
+        opts.addAll(Arrays.asList(extra));
+        return opts;
+    }
+}
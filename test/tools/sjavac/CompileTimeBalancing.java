@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2014, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+/*
+ * @test
+ * @summary Verify that the compile times of the packages are kept in
+ *          javac_state, and used to balance the next concurrent compile
+ * @library /tools/lib
+ * @modules jdk.compiler/com.sun.tools.javac.api
+ *          jdk.compiler/com.sun.tools.javac.main
+ *          jdk.compiler/com.sun.tools.sjavac
+ * @build Wrapper toolbox.ToolBox
+ * @run main Wrapper CompileTimeBalancing
+ */
+
+import java.nio.file.*;
+import java.util.*;
+
+public class CompileTimeBalancing extends SJavacTester {
+    public static void main(String... args) throws Exception {
+        new CompileTimeBalancing().test();
+    }
+
+    void test() throws Exception {
+        Files.createDirectories(BIN);
+        for (String pkg : new String[] { "alfa", "beta", "gamma", "delta" }) {
+            tb.writeFile(GENSRC.resolve(pkg + "/C.java"),
+                         "package " + pkg + "; public class C { }");
+        }
+
+        compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN, "-j", "2",
+                "--state-format=text");
+        List<String> times = compileTimes();
+        if (times.size() != 4)
+            throw new Exception("expected a compile time for each package: " + times);
+
+        // packages that are not recompiled keep their compile times
+        tb.writeFile(GENSRC.resolve("alfa/C.java"),
+                     "package alfa; public class C { int i; }");
+        compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN, "-j", "2",
+                "--state-format=text");
+        List<String> newTimes = compileTimes();
+        if (newTimes.size() != 4)
+            throw new Exception("expected a compile time for each package: " + newTimes);
+        if (!newTimes.subList(1, 4).equals(times.subList(1, 4)))
+            throw new Exception("compile times changed: " + times + ", " + newTimes);
+    }
+
+    /** The package and compile time lines of javac_state, for each package in order. */
+    List<String> compileTimes() throws Exception {
+        List<String> lines = Files.readAllLines(BIN.resolve("javac_state"));
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < lines.size() - 1; i++) {
+            if (lines.get(i).startsWith("P ") && lines.get(i + 1).startsWith("T "))
+                result.add(lines.get(i) + " " + lines.get(i + 1));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+/*
+ * @test
+ * @summary Verify that a source whose timestamp has changed, but whose
+ *          content has not, is not recompiled, and that only the class path
+ *          jars that have been touched are digested again, and that classes
+ *          found through other options are always checked
+ * @library /tools/lib
+ * @modules jdk.compiler/com.sun.tools.javac.api
+ *          jdk.compiler/com.sun.tools.javac.main
+ *          jdk.compiler/com.sun.tools.sjavac
+ * @build Wrapper toolbox.ToolBox toolbox.JavacTask toolbox.JarTask
+ * @run main Wrapper ContentDigests
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+import toolbox.JarTask;
+import toolbox.JavacTask;
+
+public class ContentDigests extends SJavacTester {
+    public static void main(String... args) throws Exception {
+        new ContentDigests().test();
+    }
+
+    void test() throws Exception {
+        Files.createDirectories(BIN);
+        tb.writeFile(GENSRC.resolve("alfa/A.java"),
+                     "package alfa; public class A { }");
+        tb.writeFile(GENSRC.resolve("beta/B.java"),
+                     "package beta; public class B { }");
+
+        for (String format : new String[] { "binary", "text" }) {
+            compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN,
+                    "--state-format=" + format);
+
+            // A new timestamp only updates javac_state.
+            Map<String,Long> previous_bin_state = collectState(BIN);
+            Path a = GENSRC.resolve("alfa/A.java");
+            Files.setLastModifiedTime(a, FileTime.fromMillis(
+                    Files.getLastModifiedTime(a).toMillis() + 10000));
+            compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN,
+                    "--state-format=" + format);
+            verifyNewerFiles(previous_bin_state, collectState(BIN),
+                             BIN + "/javac_state");
+
+            // A new content recompiles the package.
+            previous_bin_state = collectState(BIN);
+            tb.writeFile(GENSRC.resolve("beta/B.java"),
+                         "package beta; public class B { /* " + format + " */ }");
+            compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN,
+                    "--state-format=" + format);
+            verifyNewerFiles(previous_bin_state, collectState(BIN),
+                             BIN + "/beta/B.class",
+                             BIN + "/javac_state");
+        }
+
+        testClasspath();
+    }
+
+    void testClasspath() throws Exception {
+        Path lib = Paths.get("lib.jar");
+        Path classes = Paths.get("libclasses");
+        Files.createDirectories(classes);
+        tb.writeJavaFiles(Paths.get("libsrc"), "package lib; public class L { }");
+        new JavacTask(tb)
+                .outdir(classes)
+                .files(Paths.get("libsrc", "lib", "L.java"))
+                .run()
+                .writeAll();
+        new JarTask(tb, lib)
+                .baseDir(classes)
+                .files("lib/L.class")
+                .run();
+
+        for (String format : new String[] { "binary", "text" }) {
+            compileAndCheckDigests(lib, format, 1);
+
+            // An unchanged jar is not digested again.
+            compileAndCheckDigests(lib, format, 0);
+
+            // A touched jar is.
+            Files.setLastModifiedTime(lib, FileTime.fromMillis(
+                    Files.getLastModifiedTime(lib).toMillis() + 10000));
+            compileAndCheckDigests(lib, format, 1);
+            compileAndCheckDigests(lib, format, 0);
+
+            Files.delete(BIN.resolve("javac_state"));
+        }
+
+        // Classes found through other options are always checked.
+        for (int i = 0; i < 2; i++) {
+            String log = compileAndLog("-Xbootclasspath/a:" + lib);
+            if (log.contains("The class path is unchanged"))
+                throw new Exception("expected the public apis to be checked");
+        }
+        Files.delete(BIN.resolve("javac_state"));
+    }
+
+    void compileAndCheckDigests(Path lib, String format, int expected) throws Exception {
+        String log = compileAndLog("--state-format=" + format, "-cp", lib.toString());
+        if (!log.contains("Computed the digests of " + expected + " class path jars"))
+            throw new Exception("expected " + expected + " class path jars to be digested");
+    }
+
+    String compileAndLog(String... args) throws Exception {
+        List<String> allArgs = new ArrayList<>(Arrays.asList(
+                GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN, "--log=debug"));
+        allArgs.addAll(Arrays.asList(args));
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        PrintStream prev = System.out;
+        System.setOut(new PrintStream(buf, true));
+        try {
+            compile(allArgs.toArray(new String[allArgs.size()]));
+        } finally {
+            System.setOut(prev);
+        }
+        String log = buf.toString();
+        System.out.print(log);
+        return log;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/*
+ * @test
+ * @summary Makes sure several sjavac requests can share one connection to
+ *          the server, and that each gets its own log messages and result.
+ * @modules jdk.compiler/com.sun.tools.javac.main
+ *          jdk.compiler/com.sun.tools.sjavac
+ *          jdk.compiler/com.sun.tools.sjavac.client
+ *          jdk.compiler/com.sun.tools.sjavac.server
+ * @build Wrapper
+ * @run main Wrapper MultiplexedRequests
+ */
+
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+
+import com.sun.tools.javac.main.Main.Result;
+import com.sun.tools.sjavac.Log;
+import com.sun.tools.sjavac.client.SjavacConnection;
+import com.sun.tools.sjavac.server.RequestHandler;
+import com.sun.tools.sjavac.server.Sjavac;
+
+
+public class MultiplexedRequests {
+
+    static final int NUM_REQUESTS = 10;
+
+    // Keeps all requests in progress at the same time.
+    static final CountDownLatch allStarted = new CountDownLatch(NUM_REQUESTS);
+
+    public static void main(String[] args) throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 0, InetAddress.getByName(null))) {
+            Thread server = new Thread(() -> {
+                try {
+                    new RequestHandler(serverSocket.accept(), new EchoService()).start();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            server.start();
+
+            SjavacConnection connection = new SjavacConnection(
+                    new Socket(InetAddress.getByName(null), serverSocket.getLocalPort()));
+            server.join();
+
+            Thread[] clients = new Thread[NUM_REQUESTS];
+            String[] logs = new String[NUM_REQUESTS];
+            Result[] results = new Result[NUM_REQUESTS];
+            for (int i = 0; i < NUM_REQUESTS; i++) {
+                int n = i;
+                clients[i] = new Thread(() -> {
+                    StringWriter out = new StringWriter();
+                    Log.setLogForCurrentThread(new Log(out, out));
+                    try {
+                        results[n] = connection.compile(new String[] { "request" + n });
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                    logs[n] = out.toString();
+                });
+                clients[i].start();
+            }
+            for (Thread t : clients)
+                t.join();
+            connection.close();
+
+            for (int i = 0; i < NUM_REQUESTS; i++) {
+                Result expected = (i % 2 == 0) ? Result.OK : Result.ERROR;
+                if (results[i] != expected)
+                    throw new AssertionError("request" + i + ": " + results[i]);
+                String expectedLog = String.format("compiling request%d%n" +
+                                                   "first line\n" +
+                                                   "second line%n", i);
+                if (!expectedLog.equals(logs[i]))
+                    throw new AssertionError("request" + i + " logged: " + logs[i]);
+            }
+        }
+    }
+
+    static class EchoService implements Sjavac {
+        @Override
+        public Result compile(String[] args) {
+            Log.info("compiling " + args[0]);
+            allStarted.countDown();
+            try {
+                allStarted.await();
+            } catch (InterruptedException ie) {
+                throw new RuntimeException("Interrupted", ie);
+            }
+            Log.info("first line\nsecond line");
+            int n = Integer.parseInt(args[0].substring("request".length()));
+            return (n % 2 == 0) ? Result.OK : Result.ERROR;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
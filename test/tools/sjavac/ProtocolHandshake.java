@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/*
+ * @test
+ * @summary Makes sure the handshake fails, rather than hangs, when one side
+ *          speaks the older line based protocol.
+ * @modules jdk.compiler/com.sun.tools.javac.main
+ *          jdk.compiler/com.sun.tools.sjavac
+ *          jdk.compiler/com.sun.tools.sjavac.client
+ *          jdk.compiler/com.sun.tools.sjavac.server
+ * @build Wrapper
+ * @run main Wrapper ProtocolHandshake
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import com.sun.tools.javac.main.Main.Result;
+import com.sun.tools.sjavac.client.SjavacConnection;
+import com.sun.tools.sjavac.server.RequestHandler;
+import com.sun.tools.sjavac.server.Sjavac;
+
+
+public class ProtocolHandshake {
+
+    public static void main(String[] args) throws Exception {
+        newClientOldServer();
+        oldClientNewServer();
+    }
+
+    // The old server reads the number of arguments from the first line.
+    static void newClientOldServer() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 0, InetAddress.getByName(null))) {
+            Thread server = new Thread(() -> {
+                try (Socket s = serverSocket.accept()) {
+                    BufferedReader in = new BufferedReader(
+                            new InputStreamReader(s.getInputStream()));
+                    Integer.parseInt(in.readLine());
+                    throw new AssertionError("the preamble was taken for a number");
+                } catch (NumberFormatException | IOException e) {
+                    // the socket is closed, as by the old server
+                }
+            });
+            server.start();
+
+            long start = System.currentTimeMillis();
+            try {
+                new SjavacConnection(
+                        new Socket(InetAddress.getByName(null), serverSocket.getLocalPort()));
+                throw new AssertionError("the handshake with an old server succeeded");
+            } catch (IOException e) {
+                System.out.println("Expected: " + e);
+            }
+            server.join();
+            long time = System.currentTimeMillis() - start;
+            if (time > 5000)
+                throw new AssertionError("the handshake took " + time + " ms");
+        }
+    }
+
+    // The old client writes the number of arguments, and the arguments, on
+    // separate lines, and then reads the answer line by line.
+    static void oldClientNewServer() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 0, InetAddress.getByName(null))) {
+            Thread server = new Thread(() -> {
+                try {
+                    RequestHandler handler =
+                            new RequestHandler(serverSocket.accept(), new NoService());
+                    handler.start();
+                    handler.join();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            server.start();
+
+            try (Socket s = new Socket(InetAddress.getByName(null), serverSocket.getLocalPort())) {
+                PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+                out.println("1");
+                out.println("-version");
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream()));
+                String line;
+                while ((line = in.readLine()) != null) {
+                    System.out.println("Read: " + line);
+                }
+            }
+            server.join();
+        }
+    }
+
+    static class NoService implements Sjavac {
+        @Override
+        public Result compile(String[] args) {
+            throw new AssertionError("no compilation expected");
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
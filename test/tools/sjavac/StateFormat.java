@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+/*
+ * @test
+ * @summary Verify that javac_state can be written in the binary and the
+ *          text format, that switching between them keeps the state, and
+ *          that a corrupt binary state is dropped
+ * @library /tools/lib
+ * @modules jdk.compiler/com.sun.tools.javac.api
+ *          jdk.compiler/com.sun.tools.javac.main
+ *          jdk.compiler/com.sun.tools.sjavac
+ * @build Wrapper toolbox.ToolBox
+ * @run main Wrapper StateFormat
+ */
+
+import java.io.DataInputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.*;
+
+import com.sun.tools.sjavac.BinaryJavacState;
+
+public class StateFormat extends SJavacTester {
+    public static void main(String... args) throws Exception {
+        new StateFormat().test();
+    }
+
+    void test() throws Exception {
+        Files.createDirectories(BIN);
+        tb.writeFile(GENSRC.resolve("alfa/omega/A.java"),
+                     "package alfa.omega; public class A { public void a() { } }");
+        tb.writeFile(GENSRC.resolve("beta/B.java"),
+                     "package beta; public class B { void b() { new alfa.omega.A().a(); } }");
+        tb.writeFile(GENSRC.resolve("gamma/C.java"),
+                     "package gamma; public class C { }");
+
+        compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN);
+        checkFormat(true);
+        Map<String,Long> previous_bin_state = collectState(BIN);
+
+        // Switching the format rewrites the state, but recompiles nothing.
+        compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN,
+                "--state-format=text");
+        checkFormat(false);
+        verifyNewerFiles(previous_bin_state, collectState(BIN), BIN + "/javac_state");
+        List<String> lines = Files.readAllLines(BIN.resolve("javac_state"));
+        for (String l : new String[] { "P :alfa.omega", "P :beta", "P :gamma",
+                                       "I   METHOD public void a()" }) {
+            if (!lines.contains(l))
+                throw new Exception("expected " + l + " in javac_state: " + lines);
+        }
+
+        previous_bin_state = collectState(BIN);
+        compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN);
+        checkFormat(true);
+        verifyNewerFiles(previous_bin_state, collectState(BIN), BIN + "/javac_state");
+
+        // Only the changed package is recompiled from the binary state.
+        previous_bin_state = collectState(BIN);
+        tb.writeFile(GENSRC.resolve("gamma/C.java"),
+                     "package gamma; public class C { public void c() { } }");
+        compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN);
+        checkFormat(true);
+        verifyNewerFiles(previous_bin_state, collectState(BIN),
+                         BIN + "/gamma/C.class",
+                         BIN + "/javac_state");
+
+        // The public apis of the packages that were not recompiled are kept.
+        compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN,
+                "--state-format=text");
+        checkFormat(false);
+        lines = Files.readAllLines(BIN.resolve("javac_state"));
+        for (String l : new String[] { "I   METHOD public void a()",
+                                       "I   METHOD public void c()" }) {
+            if (!lines.contains(l))
+                throw new Exception("expected " + l + " in javac_state: " + lines);
+        }
+
+        // A bad public api line drops the state when it is loaded, rather
+        // than when the public api is first used.
+        compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN);
+        checkFormat(true);
+        corruptLastPubApiLine();
+        previous_bin_state = collectState(BIN);
+        compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN);
+        checkFormat(true);
+        verifyNewerFiles(previous_bin_state, collectState(BIN),
+                         BIN + "/alfa/omega/A.class",
+                         BIN + "/beta/B.class",
+                         BIN + "/gamma/C.class",
+                         BIN + "/javac_state");
+    }
+
+    // The record of the last package, gamma, ends with its public api,
+    // right before the string table.
+    void corruptLastPubApiLine() throws Exception {
+        Path state = BIN.resolve("javac_state");
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(state));
+        int tableOffset = (int) buf.getLong(16);
+        buf.putInt(tableOffset - 4, Integer.MAX_VALUE);
+        Files.write(state, buf.array());
+    }
+
+    void checkFormat(boolean binary) throws Exception {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(BIN.resolve("javac_state")))) {
+            if ((in.readInt() == BinaryJavacState.MAGIC) != binary)
+                throw new Exception("expected a " + (binary ? "binary" : "text") + " javac_state");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+/*
+ * @test
+ * @summary Verify that file managers are reused between compilations with
+ *          the same arguments, and dropped when a jar on the class path changes
+ * @library /tools/lib
+ * @modules jdk.compiler/com.sun.tools.javac.api
+ *          jdk.compiler/com.sun.tools.javac.main
+ *          jdk.compiler/com.sun.tools.sjavac
+ * @build Wrapper toolbox.ToolBox toolbox.JavacTask toolbox.JarTask
+ * @run main Wrapper WarmFileManagers
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+
+import toolbox.JarTask;
+import toolbox.JavacTask;
+
+public class WarmFileManagers extends SJavacTester {
+    public static void main(String... args) throws Exception {
+        new WarmFileManagers().test();
+    }
+
+    static final Path LIB = Paths.get("lib.jar");
+
+    void test() throws Exception {
+        Files.createDirectories(BIN);
+        writeLib("public static void a() { }");
+        tb.writeFile(GENSRC.resolve("alfa/A.java"),
+                     "package alfa; public class A { void a() { lib.L.a(); } }");
+
+        String log = compileAndLog();
+        check(log, false, "Reusing a warm file manager.");
+
+        // Same arguments, nothing changed.
+        tb.writeFile(GENSRC.resolve("alfa/A.java"),
+                     "package alfa; public class A { void a() { lib.L.a(); lib.L.a(); } }");
+        log = compileAndLog();
+        check(log, true, "Reusing a warm file manager.");
+
+        // A touched jar is digested, but the file manager is still reused.
+        Files.setLastModifiedTime(LIB, FileTime.fromMillis(
+                Files.getLastModifiedTime(LIB).toMillis() + 10000));
+        tb.writeFile(GENSRC.resolve("alfa/A.java"),
+                     "package alfa; public class A { void a() { lib.L.a(); } }");
+        log = compileAndLog();
+        check(log, true, "Reusing a warm file manager.");
+
+        // A changed jar must be read again.
+        writeLib("public static void b() { }");
+        tb.writeFile(GENSRC.resolve("alfa/A.java"),
+                     "package alfa; public class A { void a() { lib.L.b(); } }");
+        log = compileAndLog();
+        check(log, true, "A jar has changed");
+        check(log, false, "Reusing a warm file manager.");
+    }
+
+    void writeLib(String member) throws Exception {
+        Path src = Paths.get("libsrc");
+        Path classes = Paths.get("libclasses");
+        Files.createDirectories(classes);
+        tb.writeJavaFiles(src, "package lib; public class L { " + member + " }");
+        new JavacTask(tb)
+                .outdir(classes)
+                .files(src.resolve("lib/L.java"))
+                .run()
+                .writeAll();
+        Files.deleteIfExists(LIB);
+        new JarTask(tb, LIB)
+                .baseDir(classes)
+                .files("lib/L.class")
+                .run();
+    }
+
+    String compileAndLog() throws Exception {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        PrintStream prev = System.out;
+        System.setOut(new PrintStream(buf, true));
+        try {
+            compile(GENSRC.toString(), "-d", BIN.toString(), "--state-dir=" + BIN,
+                    "-cp", LIB.toString(), "--log=debug");
+        } finally {
+            System.setOut(prev);
+        }
+        String log = buf.toString();
+        System.out.print(log);
+        return log;
+    }
+
+    void check(String log, boolean expected, String msg) throws Exception {
+        if (log.contains(msg) != expected)
+            throw new Exception((expected ? "expected " : "did not expect ") + "'" + msg + "' in the log");
+    }
+}